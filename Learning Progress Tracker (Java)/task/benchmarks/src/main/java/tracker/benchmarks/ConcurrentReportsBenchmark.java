@@ -0,0 +1,85 @@
+package tracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.StudentManager;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress check for snapshot reads: points ingestion on its own, and the same
+ * ingestion while another thread keeps printing the full Java course details
+ * and the statistics report. Reports walk immutable snapshots, so the
+ * {@code ingest} throughput of both groups should be about the same; a drop
+ * in {@code ingestWithReports} beyond the CPU the reporter itself takes
+ * means reports are blocking writers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ConcurrentReportsBenchmark {
+    private static final int PRECOMPUTED_INPUTS = 1 << 12;
+
+    @Param({"100000", "1000000"})
+    public int students;
+
+    private final PrintWriter sink = new PrintWriter(Writer.nullWriter());
+    private StudentManager studentManager;
+    private String[] pointLines;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void populate() {
+        studentManager = Roster.populate(students, 42);
+        SplittableRandom random = new SplittableRandom(7);
+        pointLines = new String[PRECOMPUTED_INPUTS];
+        for (int i = 0; i < PRECOMPUTED_INPUTS; i++) {
+            int id = Roster.FIRST_ID + random.nextInt(students);
+            pointLines[i] = id + " " + random.nextInt(20) + " " + random.nextInt(20) + " 0 " + random.nextInt(20);
+        }
+    }
+
+    @Benchmark
+    @Group("ingestOnly")
+    @GroupThreads(3)
+    public void ingest(Cursor cursor) {
+        studentManager.addPointsToStudent(pointLines[cursor.next++ & (PRECOMPUTED_INPUTS - 1)], sink);
+    }
+
+    @Benchmark
+    @Group("ingestWithReports")
+    @GroupThreads(3)
+    public void ingestDuringReports(Cursor cursor) {
+        studentManager.addPointsToStudent(pointLines[cursor.next++ & (PRECOMPUTED_INPUTS - 1)], sink);
+    }
+
+    @Benchmark
+    @Group("ingestWithReports")
+    @GroupThreads(1)
+    public boolean report() {
+        studentManager.calculateAndDisplayStatistics(sink);
+        return studentManager.displayCourseDetails("Java", sink);
+    }
+}
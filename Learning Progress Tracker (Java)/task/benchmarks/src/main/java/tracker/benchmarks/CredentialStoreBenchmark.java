@@ -0,0 +1,90 @@
+package tracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.CredentialStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of student credentials with the whole roster on the heap and with
+ * everything but the newest megabyte in the mapped cold segment. Nine reads
+ * in ten go to a working set of one student in a hundred, which fits the
+ * tiered store's cache; {@code uniformRead} shows the cost of a miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class CredentialStoreBenchmark {
+    private static final int PRECOMPUTED_ROWS = 1 << 16;
+
+    @Param({"1000000", "10000000"})
+    public int students;
+
+    @Param({"heap", "tiered"})
+    public String storage;
+
+    private CredentialStore credentials;
+    private Path segment;
+    private int[] skewedRows;
+    private int[] uniformRows;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        int workingSet = Math.max(1, students / 100);
+        if ("tiered".equals(storage)) {
+            segment = Files.createTempFile("credentials", ".seg");
+            credentials = CredentialStore.tiered(segment, workingSet);
+        } else {
+            credentials = CredentialStore.inMemory();
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < students; i++) {
+            String[] parts = Roster.credentials(i, random).split(" ");
+            credentials.add(parts[0], parts[parts.length - 2], parts[parts.length - 1]);
+        }
+        skewedRows = new int[PRECOMPUTED_ROWS];
+        uniformRows = new int[PRECOMPUTED_ROWS];
+        for (int i = 0; i < PRECOMPUTED_ROWS; i++) {
+            skewedRows[i] = random.nextInt(10) < 9 ? random.nextInt(workingSet) : random.nextInt(students);
+            uniformRows[i] = random.nextInt(students);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void removeSegment() throws IOException {
+        credentials.close();
+        if (segment != null) {
+            Files.delete(segment);
+        }
+    }
+
+    @Benchmark
+    public CredentialStore.Credentials skewedRead() {
+        return credentials.get(skewedRows[next++ & (PRECOMPUTED_ROWS - 1)]);
+    }
+
+    @Benchmark
+    public CredentialStore.Credentials uniformRead() {
+        return credentials.get(uniformRows[next++ & (PRECOMPUTED_ROWS - 1)]);
+    }
+}
@@ -0,0 +1,125 @@
+package tracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.CredentialStore;
+import tracker.EmailIndex;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Email lookups in the {@code HashMap<String, Integer>} the tracker used to keep
+ * and in {@link EmailIndex}, with and without its Bloom filter. Setup prints the
+ * bytes each entry takes on and off the heap, measured after a full GC; the
+ * credentials themselves are stored before the measurement starts, since both
+ * layouts need them. Every lookup builds its email afresh, as parsing a line
+ * does, so the map cannot reuse a cached hash code. {@code absent} looks up
+ * emails nobody has, which is what every successful {@code add students} line
+ * does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class EmailIndexBenchmark {
+    private static final int PRECOMPUTED_EMAILS = 1 << 16;
+
+    @Param({"1000000", "10000000"})
+    public int students;
+
+    @Param({"hashMap", "emailIndex", "emailIndexWithoutBloom"})
+    public String index;
+
+    private Map<String, Integer> emailToRow;
+    private EmailIndex emailIndex;
+    private char[][] presentEmails;
+    private char[][] absentEmails;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        CredentialStore credentials = CredentialStore.inMemory();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < students; i++) {
+            String[] parts = Roster.credentials(i, random).split(" ");
+            credentials.add(parts[0], parts[parts.length - 2], parts[parts.length - 1]);
+        }
+        long heapBefore = usedHeap();
+        long directBefore = usedDirectMemory();
+        if ("hashMap".equals(index)) {
+            emailToRow = new HashMap<>();
+            for (int row = 0; row < students; row++) {
+                emailToRow.put(credentials.peekField(row, 2), row);
+            }
+        } else {
+            emailIndex = new EmailIndex(credentials, "emailIndex".equals(index));
+            for (int row = 0; row < students; row++) {
+                emailIndex.add(credentials.peekField(row, 2), row);
+            }
+        }
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirectMemory() - directBefore;
+        System.out.printf("%n%s: %.1f heap + %.1f direct bytes per entry%n", index,
+                (double) heap / students, (double) direct / students);
+
+        presentEmails = new char[PRECOMPUTED_EMAILS][];
+        absentEmails = new char[PRECOMPUTED_EMAILS][];
+        for (int i = 0; i < PRECOMPUTED_EMAILS; i++) {
+            presentEmails[i] = credentials.peekField(random.nextInt(students), 2).toCharArray();
+            absentEmails[i] = ("student" + (students + random.nextInt(students)) + "@example.com").toCharArray();
+        }
+    }
+
+    @Benchmark
+    public int present() {
+        return find(presentEmails[next++ & (PRECOMPUTED_EMAILS - 1)]);
+    }
+
+    @Benchmark
+    public int absent() {
+        return find(absentEmails[next++ & (PRECOMPUTED_EMAILS - 1)]);
+    }
+
+    private int find(char[] chars) {
+        String email = new String(chars);
+        if (emailIndex != null) {
+            return emailIndex.find(email);
+        }
+        Integer row = emailToRow.get(email);
+        return row == null ? -1 : row;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirectMemory() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,53 @@
+package tracker.benchmarks;
+
+import tracker.InputParser;
+import tracker.StudentManager;
+
+import java.util.SplittableRandom;
+
+/**
+ * Builds a populated {@link StudentManager} for the benchmarks.
+ * <p>
+ * Every student enrolls in each course with 60% probability. Points per
+ * enrolled course follow a long-tailed distribution: most students stay well
+ * below the completion threshold and about one in ten reaches it.
+ */
+final class Roster {
+    static final int FIRST_ID = 1000;
+
+    private static final String[] FIRST_NAMES = {"John", "Anny", "Jean-Clause", "Al", "Robert", "Maria", "O'Neil", "Li"};
+    private static final String[] LAST_NAMES = {"Smith", "Doolittle", "van Helsing", "Owen", "Jemison Van de Graaff", "Garcia", "Chen"};
+    private static final int[] THRESHOLDS = {600, 400, 480, 550};
+
+    private Roster() {
+    }
+
+    static StudentManager populate(int students, long seed) {
+        StudentManager studentManager = new StudentManager();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < students; i++) {
+            studentManager.registerStudent(InputParser.parseStudent(credentials(i, random)));
+        }
+        StringBuilder line = new StringBuilder(32);
+        for (int i = 0; i < students; i++) {
+            line.setLength(0);
+            line.append(FIRST_ID + i);
+            for (int threshold : THRESHOLDS) {
+                line.append(' ').append(random.nextInt(100) < 60 ? points(threshold, random) : 0);
+            }
+            studentManager.applyPoints(InputParser.parsePoints(line.toString(), studentManager.getCourses().size()));
+        }
+        return studentManager;
+    }
+
+    static String credentials(long sequence, SplittableRandom random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]
+                + " student" + sequence + "@example.com";
+    }
+
+    // Exponentially distributed with a mean of a third of the threshold, never zero
+    static int points(int threshold, SplittableRandom random) {
+        double sample = -Math.log(1 - random.nextDouble()) * threshold / 3;
+        return 1 + (int) Math.min(sample, threshold * 2);
+    }
+}
@@ -0,0 +1,62 @@
+package tracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.StatisticsEngine;
+import tracker.StudentManager;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full recount of the per-course aggregates with a growing number of
+ * fork-join workers. Comparing the {@code parallelism} results for one
+ * roster size shows how the shard scan scales with cores; parallelism
+ * above the machine's core count only measures scheduling overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class StatisticsEngineBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int students;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private StudentManager studentManager;
+    private ForkJoinPool pool;
+    private StatisticsEngine engine;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        studentManager = Roster.populate(students, 42);
+        pool = new ForkJoinPool(parallelism);
+        engine = new StatisticsEngine(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public StatisticsEngine.CourseAggregates aggregateCourses() {
+        return studentManager.aggregateCourses(engine);
+    }
+}
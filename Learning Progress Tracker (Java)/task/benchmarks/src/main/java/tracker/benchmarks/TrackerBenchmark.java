@@ -0,0 +1,106 @@
+package tracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.StudentManager;
+import tracker.TrackerMetrics;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot paths of the tracker against rosters of increasing size.
+ * <p>
+ * Throughput and sampled latency are reported for the per-line operations,
+ * average time for the whole-roster reports. Run through
+ * {@link BenchmarkRunner} to get allocation rates from the GC profiler too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class TrackerBenchmark {
+    private static final int PRECOMPUTED_INPUTS = 1 << 12;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int students;
+
+    private final PrintWriter sink = new PrintWriter(Writer.nullWriter());
+    private final AtomicLong registrations = new AtomicLong();
+    private StudentManager studentManager;
+    private String[] pointLines;
+    private String[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        studentManager = Roster.populate(students, 42);
+        SplittableRandom random = new SplittableRandom(7);
+        pointLines = new String[PRECOMPUTED_INPUTS];
+        ids = new String[PRECOMPUTED_INPUTS];
+        for (int i = 0; i < PRECOMPUTED_INPUTS; i++) {
+            int id = Roster.FIRST_ID + random.nextInt(students);
+            pointLines[i] = id + " " + random.nextInt(20) + " " + random.nextInt(20) + " 0 " + random.nextInt(20);
+            // One in sixteen lookups misses
+            ids[i] = String.valueOf(i % 16 == 0 ? Roster.FIRST_ID + students + i : id);
+        }
+    }
+
+    @Benchmark
+    public void addStudent() {
+        long sequence = students + registrations.incrementAndGet();
+        studentManager.addStudent("Bench Mark bench" + sequence + "@example.com", sink);
+    }
+
+    @Benchmark
+    public void addPointsToStudent() {
+        studentManager.addPointsToStudent(pointLines[next++ & (PRECOMPUTED_INPUTS - 1)], sink);
+    }
+
+    @Benchmark
+    public void findStudentById() {
+        studentManager.findStudentById(ids[next++ & (PRECOMPUTED_INPUTS - 1)], sink);
+    }
+
+    // Instrumentation cost per command; the GC profiler should report no allocation
+    @Benchmark
+    public void recordLatency() {
+        studentManager.getMetrics().record(TrackerMetrics.Operation.ADD_POINTS, System.nanoTime());
+    }
+
+    @Benchmark
+    public void calculateAndDisplayStatistics() {
+        studentManager.calculateAndDisplayStatistics(sink);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean displayCourseDetails() {
+        return studentManager.displayCourseDetails("Java", sink);
+    }
+
+    // A new student completes a course and is notified, on top of an already notified roster
+    @Benchmark
+    public void generateNotifications() {
+        long sequence = students + registrations.incrementAndGet();
+        studentManager.addStudent("Bench Mark bench" + sequence + "@example.com", sink);
+        studentManager.addPointsToStudent((Roster.FIRST_ID + studentManager.getStudentCount() - 1) + " 600 0 0 0", sink);
+        studentManager.generateNotifications(sink);
+    }
+}
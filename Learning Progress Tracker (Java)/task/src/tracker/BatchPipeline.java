@@ -0,0 +1,207 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a command script through a staged pipeline instead of the interactive loop.
+ * <ol>
+ * <li>A reader thread reads the script in batches of lines and works out the
+ * {@link SessionProcessor.Mode} of every line, which only depends on the lines before it.</li>
+ * <li>A pool parses the credentials and points lines of each batch in parallel.</li>
+ * <li>The calling thread applies the batches strictly in order through one
+ * {@link CommandProcessor}, exactly as if the lines had been typed.</li>
+ * <li>A writer thread writes the output of each applied batch.</li>
+ * </ol>
+ * Stages are connected by bounded queues, so a large script is never held in memory
+ * as a whole, and the output is byte for byte what interactive mode would print.
+ * If the writer fails, the calling thread notices while waiting for room in its
+ * queue, stops the other stages and rethrows the writer's failure.
+ */
+public class BatchPipeline {
+    private static final int BATCH_LINES = 4096;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final byte[] END_OF_OUTPUT = new byte[0];
+    private static final long WRITER_CHECK_MILLIS = 100;
+
+    private final StudentManager studentManager;
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public BatchPipeline(StudentManager studentManager) {
+        this.studentManager = studentManager;
+    }
+
+    private static final class Batch {
+        final String[] lines = new String[BATCH_LINES];
+        final SessionProcessor.Mode[] modes = new SessionProcessor.Mode[BATCH_LINES];
+        final ParsedStudent[] students = new ParsedStudent[BATCH_LINES];
+        final ParsedPoints[] points = new ParsedPoints[BATCH_LINES];
+        int size;
+        boolean last;
+    }
+
+    // Collects what the session prints during one batch, so the batch can be handed to the writer stage
+    private static final class ChunkOutputStream extends OutputStream {
+        private byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + length, buffer.length * 2));
+            }
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        byte[] takeChunk() {
+            byte[] chunk = Arrays.copyOf(buffer, size);
+            size = 0;
+            return chunk;
+        }
+    }
+
+    public void run(Path script, OutputStream output) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(script, Charset.defaultCharset());
+        BlockingQueue<CompletableFuture<Batch>> parsed = new ArrayBlockingQueue<>(parallelism * 2);
+        BlockingQueue<byte[]> written = new ArrayBlockingQueue<>(4);
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, daemon("batch-parser"));
+        Thread readerThread = daemon("batch-reader").newThread(() -> readBatches(reader, parsers, parsed));
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> writeChunks(written, output),
+                command -> daemon("batch-writer").newThread(command).start());
+        readerThread.start();
+
+        ChunkOutputStream chunks = new ChunkOutputStream();
+        ConsoleIO console = new ConsoleIO(InputStream.nullInputStream(), chunks);
+        // Journaled changes are forced once per batch, before the batch's output is handed on
+        CommandProcessor processor = new CommandProcessor(console, studentManager, false);
+        try {
+            processor.start();
+            Batch batch;
+            do {
+                batch = parsed.take().get();
+                for (int i = 0; i < batch.size && !processor.isClosed(); i++) {
+                    processor.handleLine(batch.lines[i], batch.students[i], batch.points[i]);
+                }
+                console.flush();
+                studentManager.awaitJournal();
+                handOff(written, chunks.takeChunk(), writer);
+            } while (!batch.last && !processor.isClosed());
+            handOff(written, END_OF_OUTPUT, writer);
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + script, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Could not run " + script, e.getCause());
+        } finally {
+            readerThread.interrupt();
+            parsers.shutdownNow();
+            reader.close();
+        }
+    }
+
+    // Reader stage: stops after the line that closes the session, since nothing after it is read interactively either
+    private void readBatches(BufferedReader reader, ExecutorService parsers, BlockingQueue<CompletableFuture<Batch>> parsed) {
+        SessionProcessor.Mode mode = SessionProcessor.Mode.COMMAND;
+        try {
+            boolean last = false;
+            while (!last) {
+                Batch batch = new Batch();
+                String line;
+                while (batch.size < BATCH_LINES && mode != SessionProcessor.Mode.CLOSED && (line = reader.readLine()) != null) {
+                    line = line.trim();
+                    batch.lines[batch.size] = line;
+                    batch.modes[batch.size++] = mode;
+                    mode = mode.next(line);
+                }
+                last = batch.size < BATCH_LINES || mode == SessionProcessor.Mode.CLOSED;
+                batch.last = last;
+                parsed.put(CompletableFuture.supplyAsync(() -> parse(batch), parsers));
+            }
+        } catch (IOException e) {
+            try {
+                // Waits for room like any batch, so the failure cannot get lost behind a full queue
+                parsed.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Validation stage: entries of 'add students' and 'add points' do not depend on each other until they are applied
+    private Batch parse(Batch batch) {
+        int courseCount = studentManager.getCourses().size();
+        for (int i = 0; i < batch.size; i++) {
+            String line = batch.lines[i];
+            if ("back".equalsIgnoreCase(line)) {
+                continue;
+            }
+            if (batch.modes[i] == SessionProcessor.Mode.ADD_STUDENTS && !"exit".equalsIgnoreCase(line)) {
+                batch.students[i] = InputParser.parseStudent(line);
+            } else if (batch.modes[i] == SessionProcessor.Mode.ADD_POINTS) {
+                batch.points[i] = InputParser.parsePoints(line, courseCount);
+            }
+        }
+        return batch;
+    }
+
+    // Waits for room in the writer's queue, but only for as long as the writer is still running
+    private static void handOff(BlockingQueue<byte[]> written, byte[] chunk, CompletableFuture<Void> writer)
+            throws InterruptedException, ExecutionException, IOException {
+        do {
+            if (writer.isDone()) {
+                writer.get();
+                throw new IOException("Output writer stopped early");
+            }
+        } while (!written.offer(chunk, WRITER_CHECK_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    // Writer stage
+    private static void writeChunks(BlockingQueue<byte[]> written, OutputStream output) {
+        try {
+            byte[] chunk;
+            while ((chunk = written.take()) != END_OF_OUTPUT) {
+                output.write(chunk);
+            }
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,195 @@
+package tracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a file written by {@link BinaryExporter} in place. Every section is
+ * memory-mapped when the file is opened, and each accessor reads one value of one row
+ * straight from its mapped column, so iterating over rows only pages in the columns
+ * that are asked for and decodes strings only on request. Sections with unknown tags
+ * are skipped. All reads are absolute, so one reader can be shared between threads.
+ * <p>
+ * Rows are numbered from 0 in file order, which is id order in a roster export and
+ * rank order in a course export.
+ */
+public final class BinaryExportReader {
+    private final int kind;
+    private final int rows;
+    private final String[] courseNames;
+    private final int[] thresholds;
+    private final ByteBuffer ids;
+    private final ByteBuffer[] points;
+    private final ByteBuffer completed;
+    private final ByteBuffer firstNames;
+    private final ByteBuffer lastNames;
+    private final ByteBuffer emailDomains;
+    private final ByteBuffer emailLocalOffsets;
+    private final ByteBuffer emailLocalBytes;
+    private final ByteBuffer dictionary;
+    private final int dictionaryBytesStart;
+
+    private BinaryExportReader(Path file, ByteBuffer header, Map<Integer, List<ByteBuffer>> sections) throws IOException {
+        kind = header.getInt(2 * Integer.BYTES);
+        rows = header.getInt(3 * Integer.BYTES);
+
+        ByteBuffer courseList = section(file, sections, BinaryExporter.COURSES);
+        int courseCount = courseList.getInt();
+        courseNames = new String[courseCount];
+        thresholds = new int[courseCount];
+        for (int course = 0; course < courseCount; course++) {
+            thresholds[course] = courseList.getInt();
+            byte[] name = new byte[courseList.getInt()];
+            courseList.get(name);
+            courseNames[course] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        ids = column(file, sections, BinaryExporter.IDS, Integer.BYTES);
+        points = sections.getOrDefault(BinaryExporter.POINTS, List.of()).toArray(new ByteBuffer[0]);
+        if (points.length != courseCount) {
+            throw new IOException("Export has " + points.length + " points columns for " + courseCount + " courses: " + file);
+        }
+        for (ByteBuffer column : points) {
+            checkLength(file, column, (long) rows * Integer.BYTES);
+        }
+        completed = column(file, sections, BinaryExporter.COMPLETED, Long.BYTES);
+        firstNames = column(file, sections, BinaryExporter.FIRST_NAMES, Integer.BYTES);
+        lastNames = column(file, sections, BinaryExporter.LAST_NAMES, Integer.BYTES);
+        emailDomains = column(file, sections, BinaryExporter.EMAIL_DOMAINS, Integer.BYTES);
+        emailLocalOffsets = section(file, sections, BinaryExporter.EMAIL_LOCAL_OFFSETS);
+        checkLength(file, emailLocalOffsets, (rows + 1L) * Integer.BYTES);
+        emailLocalBytes = section(file, sections, BinaryExporter.EMAIL_LOCAL_BYTES);
+        dictionary = section(file, sections, BinaryExporter.DICTIONARY);
+        dictionaryBytesStart = (dictionary.getInt(0) + 2) * Integer.BYTES;
+    }
+
+    public static BinaryExportReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = readFully(channel, file, 0, BinaryExporter.HEADER_SIZE);
+            if (header.getInt(0) != BinaryExporter.MAGIC || header.getInt(Integer.BYTES) != BinaryExporter.VERSION) {
+                throw new IOException("Unsupported export format: " + file);
+            }
+            Map<Integer, List<ByteBuffer>> sections = new HashMap<>();
+            long position = BinaryExporter.HEADER_SIZE;
+            while (position < size) {
+                ByteBuffer sectionHeader = readFully(channel, file, position, BinaryExporter.SECTION_HEADER_SIZE);
+                int tag = sectionHeader.getInt();
+                long length = sectionHeader.getLong();
+                position += BinaryExporter.SECTION_HEADER_SIZE;
+                if (length < 0 || length > size - position) {
+                    throw new IOException("Truncated export: " + file);
+                }
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Export section of " + length + " bytes is too large to map: " + file);
+                }
+                sections.computeIfAbsent(tag, key -> new ArrayList<>())
+                        .add(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                position += length;
+            }
+            return new BinaryExportReader(file, header, sections);
+        }
+    }
+
+    public boolean isCourseExport() {
+        return kind == BinaryExporter.KIND_COURSE;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getCourseCount() {
+        return courseNames.length;
+    }
+
+    public String getCourseName(int course) {
+        return courseNames[course];
+    }
+
+    public int getCompletionThreshold(int course) {
+        return thresholds[course];
+    }
+
+    public int getId(int row) {
+        return ids.getInt(row * Integer.BYTES);
+    }
+
+    public int getPoints(int row, int course) {
+        return points[course].getInt(row * Integer.BYTES);
+    }
+
+    // Bit i is set if the student has completed course i of this file
+    public long getCompletedCourses(int row) {
+        return completed.getLong(row * Long.BYTES);
+    }
+
+    public boolean isCompleted(int row, int course) {
+        return (getCompletedCourses(row) & 1L << course) != 0;
+    }
+
+    public String getFirstName(int row) {
+        return dictionaryEntry(firstNames.getInt(row * Integer.BYTES));
+    }
+
+    public String getLastName(int row) {
+        return dictionaryEntry(lastNames.getInt(row * Integer.BYTES));
+    }
+
+    public String getEmail(int row) {
+        int start = emailLocalOffsets.getInt(row * Integer.BYTES);
+        int end = emailLocalOffsets.getInt((row + 1) * Integer.BYTES);
+        return decode(emailLocalBytes, start, end) + "@" + dictionaryEntry(emailDomains.getInt(row * Integer.BYTES));
+    }
+
+    private String dictionaryEntry(int code) {
+        int start = dictionary.getInt((code + 1) * Integer.BYTES);
+        int end = dictionary.getInt((code + 2) * Integer.BYTES);
+        return decode(dictionary, dictionaryBytesStart + start, dictionaryBytesStart + end);
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer section(Path file, Map<Integer, List<ByteBuffer>> sections, int tag) throws IOException {
+        List<ByteBuffer> found = sections.get(tag);
+        if (found == null || found.size() != 1) {
+            throw new IOException("Export section " + tag + " is missing or repeated: " + file);
+        }
+        return found.get(0);
+    }
+
+    // A section with one value of the given width per row
+    private ByteBuffer column(Path file, Map<Integer, List<ByteBuffer>> sections, int tag, int width) throws IOException {
+        ByteBuffer column = section(file, sections, tag);
+        checkLength(file, column, (long) rows * width);
+        return column;
+    }
+
+    private static void checkLength(Path file, ByteBuffer column, long expected) throws IOException {
+        if (column.capacity() != expected) {
+            throw new IOException("Export column of " + column.capacity() + " bytes, expected " + expected + ": " + file);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, Path file, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated export: " + file);
+            }
+        }
+        return buffer.flip();
+    }
+}
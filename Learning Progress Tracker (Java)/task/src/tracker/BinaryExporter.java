@@ -0,0 +1,336 @@
+package tracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the roster or the learners of one course to a compact binary file for
+ * analytics, which {@link BinaryExportReader} reads back.
+ * <p>
+ * The file starts with a magic number, the format version, the kind of export and the
+ * number of rows. Sections follow, each with a tag and its length in bytes, so a reader
+ * can skip the ones it does not know. Apart from the course list, every section is one
+ * column: ids, the points in one course (one section per course, in course order), a
+ * bitmask of completed courses, dictionary codes of first names, last names and email
+ * domains, and the local parts of the emails as offsets into a byte section. The string
+ * dictionary comes last. A course export lists its learners in rank order and has that
+ * course as its only one. Numbers are big-endian, as in the snapshots.
+ * <p>
+ * The size of every column but the local part bytes follows from the row count, so all
+ * of them are filled in a single pass: each column has its own direct buffer, which is
+ * written through the {@link FileChannel} at the column's offset whenever it fills up.
+ * Rows are copied from the {@link StudentManager} a chunk at a time, so updates only
+ * ever wait for one chunk; a course export walks one snapshot of the leaderboard.
+ * <p>
+ * Offsets within a section are ints, and a reader maps every section in one buffer, so
+ * no section may exceed 2 GiB. An export that would is refused with an
+ * {@link IOException}, and the partly written file is deleted.
+ */
+public class BinaryExporter {
+    static final int MAGIC = 0x4C505458; // "LPTX"
+    static final int VERSION = 1;
+    static final int KIND_ROSTER = 0;
+    static final int KIND_COURSE = 1;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int SECTION_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    static final int COURSES = 1;
+    static final int IDS = 2;
+    static final int POINTS = 3;
+    static final int COMPLETED = 4;
+    static final int FIRST_NAMES = 5;
+    static final int LAST_NAMES = 6;
+    static final int EMAIL_DOMAINS = 7;
+    static final int EMAIL_LOCAL_OFFSETS = 8;
+    static final int EMAIL_LOCAL_BYTES = 9;
+    static final int DICTIONARY = 10;
+
+    private static final int CHUNK_ROWS = 4096;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final StudentManager studentManager;
+
+    public BinaryExporter(StudentManager studentManager) {
+        this.studentManager = studentManager;
+    }
+
+    // Returns the number of students written
+    public long exportRoster(Path file) throws IOException {
+        CourseRegistry courses = studentManager.getCourses();
+        int[] courseIndexes = new int[courses.size()];
+        Arrays.setAll(courseIndexes, course -> course);
+        int rows = studentManager.getStudentCount();
+        int firstStudentId = studentManager.getFirstStudentId();
+
+        try (ExportWriter writer = new ExportWriter(file, KIND_ROSTER, rows, courses, courseIndexes)) {
+            int[] ids = new int[CHUNK_ROWS];
+            int[][] points = new int[courses.size()][CHUNK_ROWS];
+            CredentialStore.Credentials[] credentials = new CredentialStore.Credentials[CHUNK_ROWS];
+            for (int from = 0; from < rows; from += CHUNK_ROWS) {
+                int to = Math.min(rows, from + CHUNK_ROWS);
+                studentManager.copyRows(from, to, credentials, points);
+                for (int row = from; row < to; row++) {
+                    ids[row - from] = firstStudentId + row;
+                }
+                writer.writeRows(to - from, ids, points, credentials);
+            }
+            writer.finish();
+        }
+        return rows;
+    }
+
+    // Returns the number of learners written
+    public long exportCourse(int courseIndex, Path file) throws IOException {
+        // One snapshot is walked a chunk at a time, so the row count stays that of the reserved columns
+        CourseLeaderboard.Snapshot leaderboard = studentManager.getLeaderboard(courseIndex);
+        int rows = leaderboard.size();
+
+        try (ExportWriter writer = new ExportWriter(file, KIND_COURSE, rows, studentManager.getCourses(),
+                new int[]{courseIndex})) {
+            int[] ids = new int[CHUNK_ROWS];
+            int[][] points = {new int[CHUNK_ROWS]};
+            CredentialStore.Credentials[] credentials = new CredentialStore.Credentials[CHUNK_ROWS];
+            int[] count = {0};
+            for (int from = 0; from < rows; from += CHUNK_ROWS) {
+                count[0] = 0;
+                leaderboard.forEachInRankOrder(from, CHUNK_ROWS, (id, learnerPoints) -> {
+                    ids[count[0]] = id;
+                    points[0][count[0]++] = learnerPoints;
+                });
+                studentManager.copyCredentials(ids, 0, count[0], credentials);
+                writer.writeRows(count[0], ids, points, credentials);
+            }
+            writer.finish();
+        }
+        return rows;
+    }
+
+    private static final class ExportWriter implements AutoCloseable {
+        private final Path file;
+        private final FileChannel channel;
+        private final int kind;
+        private final int rows;
+        private final byte[][] courseNames;
+        private final int[] thresholds;
+        private final List<long[]> sections = new ArrayList<>();
+        private long nextSection;
+        private final Column ids;
+        private final Column[] points;
+        private final Column completed;
+        private final Column firstNames;
+        private final Column lastNames;
+        private final Column emailDomains;
+        private final Column emailLocalOffsets;
+        private final Column emailLocalBytes;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int written;
+        private int emailLocalEnd;
+        private boolean finished;
+
+        // Lays out the sections; the headers are written by finish(), once every length is known
+        ExportWriter(Path file, int kind, int rows, CourseRegistry courses, int[] courseIndexes) throws IOException {
+            this.file = file;
+            this.kind = kind;
+            this.rows = rows;
+            this.courseNames = new byte[courseIndexes.length][];
+            this.thresholds = new int[courseIndexes.length];
+            long courseListLength = Integer.BYTES;
+            for (int i = 0; i < courseIndexes.length; i++) {
+                courseNames[i] = courses.getName(courseIndexes[i]).getBytes(StandardCharsets.UTF_8);
+                thresholds[i] = courses.getCompletionThreshold(courseIndexes[i]);
+                courseListLength += 2 * Integer.BYTES + courseNames[i].length;
+            }
+
+            nextSection = HEADER_SIZE;
+            reserve(COURSES, courseListLength);
+            long column = (long) rows * Integer.BYTES;
+            ids = new Column(reserve(IDS, column));
+            points = new Column[courseIndexes.length];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new Column(reserve(POINTS, column));
+            }
+            completed = new Column(reserve(COMPLETED, (long) rows * Long.BYTES));
+            firstNames = new Column(reserve(FIRST_NAMES, column));
+            lastNames = new Column(reserve(LAST_NAMES, column));
+            emailDomains = new Column(reserve(EMAIL_DOMAINS, column));
+            emailLocalOffsets = new Column(reserve(EMAIL_LOCAL_OFFSETS, column + Integer.BYTES));
+            emailLocalOffsets.putInt(0);
+            emailLocalBytes = new Column(nextSection + SECTION_HEADER_SIZE);
+
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        // Row i has rowIds[i], rowPoints[course][i] and credentials[i]
+        void writeRows(int count, int[] rowIds, int[][] rowPoints, CredentialStore.Credentials[] credentials)
+                throws IOException {
+            for (int i = 0; i < count; i++) {
+                ids.putInt(rowIds[i]);
+                long completedCourses = 0;
+                for (int course = 0; course < points.length; course++) {
+                    int value = rowPoints[course][i];
+                    points[course].putInt(value);
+                    if (value >= thresholds[course]) {
+                        completedCourses |= 1L << course;
+                    }
+                }
+                completed.putLong(completedCourses);
+                firstNames.putInt(codeOf(credentials[i].firstName()));
+                lastNames.putInt(codeOf(credentials[i].lastName()));
+                String email = credentials[i].email();
+                int at = email.lastIndexOf('@');
+                if (at > Integer.MAX_VALUE - emailLocalEnd) {
+                    throw new IOException("Export is too large: the email section would exceed 2 GiB");
+                }
+                emailDomains.putInt(codeOf(email.substring(at + 1)));
+                for (int c = 0; c < at; c++) {
+                    emailLocalBytes.put((byte) email.charAt(c));
+                }
+                emailLocalEnd += Math.max(at, 0);
+                emailLocalOffsets.putInt(emailLocalEnd);
+            }
+            written += count;
+        }
+
+        // Appends the local part bytes and the dictionary, then writes the header of the file and of every section
+        void finish() throws IOException {
+            if (written != rows) {
+                throw new IllegalStateException("Exported " + written + " of " + rows + " rows");
+            }
+            for (Column column : points) {
+                column.drain();
+            }
+            for (Column column : List.of(ids, completed, firstNames, lastNames, emailDomains, emailLocalOffsets,
+                    emailLocalBytes)) {
+                column.drain();
+            }
+            reserve(EMAIL_LOCAL_BYTES, emailLocalEnd);
+
+            byte[][] entries = new byte[dictionary.size()][];
+            long bytes = 0;
+            for (int code = 0; code < entries.length; code++) {
+                entries[code] = dictionary.get(code).getBytes(StandardCharsets.UTF_8);
+                bytes += entries[code].length;
+            }
+            Column dictionaryColumn = new Column(reserve(DICTIONARY, (long) (entries.length + 2) * Integer.BYTES + bytes));
+            dictionaryColumn.putInt(entries.length);
+            int end = 0;
+            dictionaryColumn.putInt(end);
+            for (byte[] entry : entries) {
+                end += entry.length;
+                dictionaryColumn.putInt(end);
+            }
+            for (byte[] entry : entries) {
+                for (byte b : entry) {
+                    dictionaryColumn.put(b);
+                }
+            }
+            dictionaryColumn.drain();
+
+            Column courseList = new Column(sections.get(0)[1] + SECTION_HEADER_SIZE);
+            courseList.putInt(courseNames.length);
+            for (int i = 0; i < courseNames.length; i++) {
+                courseList.putInt(thresholds[i]);
+                courseList.putInt(courseNames[i].length);
+                for (byte b : courseNames[i]) {
+                    courseList.put(b);
+                }
+            }
+            courseList.drain();
+
+            ByteBuffer headers = ByteBuffer.allocate(Math.max(HEADER_SIZE, SECTION_HEADER_SIZE));
+            writeFully(headers.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(rows).flip(), 0);
+            for (long[] section : sections) {
+                headers.clear().putInt((int) section[0]).putLong(section[2]);
+                writeFully(headers.flip(), section[1]);
+            }
+            finished = true;
+        }
+
+        // Places a section of the given tag and length after the previous one, and returns where its payload starts
+        private long reserve(int tag, long length) throws IOException {
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Export is too large: section " + tag + " would take " + length + " bytes, over 2 GiB");
+            }
+            sections.add(new long[]{tag, nextSection, length});
+            long payload = nextSection + SECTION_HEADER_SIZE;
+            nextSection = payload + length;
+            return payload;
+        }
+
+        private int codeOf(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            return code;
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        // Deletes the file unless finish() completed, so a failed export leaves nothing half written
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            if (!finished) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        // A column's direct buffer and the file offset its contents go to
+        private final class Column {
+            private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            private long position;
+
+            Column(long position) {
+                this.position = position;
+            }
+
+            void putInt(int value) throws IOException {
+                if (buffer.remaining() < Integer.BYTES) {
+                    drain();
+                }
+                buffer.putInt(value);
+            }
+
+            void putLong(long value) throws IOException {
+                if (buffer.remaining() < Long.BYTES) {
+                    drain();
+                }
+                buffer.putLong(value);
+            }
+
+            void put(byte value) throws IOException {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put(value);
+            }
+
+            void drain() throws IOException {
+                buffer.flip();
+                int length = buffer.remaining();
+                writeFully(buffer, position);
+                position += length;
+                buffer.clear();
+            }
+        }
+    }
+}
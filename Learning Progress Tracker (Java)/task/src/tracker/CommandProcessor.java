@@ -1,88 +1,300 @@
 package tracker;
 
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
 
-public class CommandProcessor {
-    private final StudentManager studentManager = new StudentManager();
-    private final Scanner scanner = new Scanner(System.in);
+/**
+ * Runs one session of commands against a {@link StudentManager} in this process,
+ * recording how long each operation takes in its {@link TrackerMetrics}.
+ * <p>
+ * Sessions of remote clients are refused the commands that read or write files,
+ * as their paths would be resolved on the tracker's machine.
+ */
+public class CommandProcessor extends SessionProcessor {
+    private static final Set<String> FILE_COMMANDS = Set.of("import", "save", "export");
 
-    public void processCommand(String command) {
+    private final StudentManager studentManager;
+    private final TrackerMetrics metrics;
+    private final boolean awaitDurable;
+    private final boolean fileCommands;
+
+    public CommandProcessor(ConsoleIO console, StudentManager studentManager) {
+        this(console, studentManager, true, true);
+    }
+
+    // Without awaitDurable, changes are not waited for in the journal, and the owner of the session
+    // has to call StudentManager.awaitJournal before it lets anyone see the output
+    CommandProcessor(ConsoleIO console, StudentManager studentManager, boolean awaitDurable) {
+        this(console, studentManager, awaitDurable, true);
+    }
+
+    CommandProcessor(ConsoleIO console, StudentManager studentManager, boolean awaitDurable, boolean fileCommands) {
+        super(console);
+        this.studentManager = studentManager;
+        this.metrics = studentManager.getMetrics();
+        this.awaitDurable = awaitDurable;
+        this.fileCommands = fileCommands;
+    }
+
+    // A session for a client on another machine, without the commands that touch files
+    static CommandProcessor forRemoteClient(ConsoleIO console, StudentManager studentManager) {
+        return new CommandProcessor(console, studentManager, true, false);
+    }
+
+    @Override
+    protected CourseRegistry getCourses() {
+        return studentManager.getCourses();
+    }
+
+    @Override
+    protected long getStudentCount() {
+        return studentManager.getStudentCount();
+    }
+
+    @Override
+    protected void addStudent(ParsedStudent student, String credentials) {
+        long start = System.nanoTime();
+        studentManager.addStudent(student, out, awaitDurable);
+        metrics.record(TrackerMetrics.Operation.ADD_STUDENT, start);
+    }
+
+    @Override
+    protected void addPoints(ParsedPoints points) {
+        long start = System.nanoTime();
+        studentManager.addPointsToStudent(points, out, awaitDurable);
+        metrics.record(TrackerMetrics.Operation.ADD_POINTS, start);
+    }
+
+    @Override
+    protected void find(String query) {
+        long start = System.nanoTime();
+        studentManager.findStudents(query, out);
+        metrics.record(TrackerMetrics.Operation.FIND, start);
+    }
+
+    @Override
+    protected boolean displayCourseDetails(String courseName) {
+        long start = System.nanoTime();
+        boolean found = studentManager.displayCourseDetails(courseName, out);
+        metrics.record(TrackerMetrics.Operation.COURSE_DETAILS, start);
+        return found;
+    }
+
+    @Override
+    protected boolean processOtherCommand(String command) {
+        if (!fileCommands && FILE_COMMANDS.contains(command.split("\\s+", 2)[0].toLowerCase())) {
+            out.println("This command is not available over the network.");
+            return true;
+        }
+        if (processImport(command) || processActivity(command) || processPaging(command) || processSave(command)
+                || processExport(command) || processDistribution(command) || processRank(command)) {
+            return true;
+        }
+        long start = System.nanoTime();
         switch (command.toLowerCase()) {
-            case "add students":
-                addStudents();
-                break;
             case "list":
-                listStudents();
-                break;
-            case "add points":
-                addPoints();
-                break;
-            case "find":
-                findStudent();
-                break;
+                studentManager.listAllStudents(out);
+                metrics.record(TrackerMetrics.Operation.LIST, start);
+                return true;
             case "statistics":
-                studentManager.calculateAndDisplayStatistics();
-                handleCourseDetails();
-                break;
+                studentManager.calculateAndDisplayStatistics(out);
+                metrics.record(TrackerMetrics.Operation.STATISTICS, start);
+                return true;
+            case "statistics recount":
+                studentManager.displayRecountedStatistics(out);
+                metrics.record(TrackerMetrics.Operation.STATISTICS, start);
+                return true;
             case "notify":
-                studentManager.generateNotifications();
-                break;
-            case "back":
-                System.out.println("Enter 'exit' to exit the program.");
-                break;
+                studentManager.generateNotifications(out);
+                metrics.record(TrackerMetrics.Operation.NOTIFY, start);
+                return true;
+            case "metrics":
+                metrics.print(out);
+                return true;
             default:
-                System.out.println("Error: unknown command!");
+                return false;
         }
     }
 
-    private void addStudents() {
-        System.out.println("Enter student credentials or 'back' to return:");
-        while (true) {
-            String input = scanner.nextLine().trim();
-            if ("back".equalsIgnoreCase(input)) {
-                System.out.println("Total " + studentManager.getStudentCount() + " students have been added.");
-                return;
-            } else if ("exit".equalsIgnoreCase(input)) {
-                System.out.println("Incorrect credentials.");
+    private boolean processImport(String command) {
+        String[] parts = command.split("\\s+", 3);
+        if (parts.length < 3 || !"import".equalsIgnoreCase(parts[0])) {
+            return false;
+        }
+
+        BulkImporter importer = new BulkImporter(studentManager);
+        Path file = Path.of(parts[2]);
+        long start = System.nanoTime();
+        try {
+            Map<Outcome, Long> summary;
+            if ("students".equalsIgnoreCase(parts[1])) {
+                summary = importer.importStudents(file);
+            } else if ("points".equalsIgnoreCase(parts[1])) {
+                summary = importer.importPoints(file);
             } else {
-                studentManager.addStudent(input);
+                return false;
             }
+            BulkImporter.printSummary(summary, out);
+            metrics.record(TrackerMetrics.Operation.IMPORT, start);
+        } catch (IOException e) {
+            out.println("Cannot read file " + file + ".");
         }
+        return true;
     }
 
-    private void listStudents() {
-        studentManager.listAllStudents();
+    // activity last <N> submissions|minutes
+    private boolean processActivity(String command) {
+        String[] parts = command.split("\\s+");
+        if (parts.length < 2 || !"activity".equalsIgnoreCase(parts[0]) || !"last".equalsIgnoreCase(parts[1])) {
+            return false;
+        }
+
+        int window = parts.length == 4 && InputParser.isDigits(parts[2]) ? InputParser.parseId(parts[2]) : -1;
+        if (window > 0 && "submissions".equalsIgnoreCase(parts[3])) {
+            studentManager.displayRecentSubmissions(window, out);
+        } else if (window > 0 && "minutes".equalsIgnoreCase(parts[3])) {
+            studentManager.displayRecentMinutes(window, out);
+        } else {
+            out.println("Incorrect activity window.");
+        }
+        return true;
     }
 
-    private void addPoints() {
-        System.out.println("Enter an id and points or 'back' to return:");
-        while (true) {
-            String input = scanner.nextLine().trim();
-            if ("back".equalsIgnoreCase(input)) {
-                return;
+    // list <offset> <limit>, course <name> top <n> [after <id> [<points>]]
+    private boolean processPaging(String command) {
+        String[] parts = command.split("\\s+");
+        long start = System.nanoTime();
+        if (parts.length == 3 && "list".equalsIgnoreCase(parts[0])) {
+            int offset = InputParser.isDigits(parts[1]) ? InputParser.parseId(parts[1]) : -1;
+            int limit = InputParser.isDigits(parts[2]) ? InputParser.parseId(parts[2]) : -1;
+            if (offset < 0 || limit <= 0) {
+                out.println("Incorrect list range.");
+            } else {
+                studentManager.listStudents(offset, limit, out);
+                metrics.record(TrackerMetrics.Operation.LIST, start);
             }
-            studentManager.addPointsToStudent(input);
+            return true;
+        }
+        if (parts.length < 4 || !"course".equalsIgnoreCase(parts[0])) {
+            return false;
+        }
+
+        int end = parts.length;
+        int afterId = -1;
+        int afterPoints = -1;
+        if (end >= 7 && "after".equalsIgnoreCase(parts[end - 3])) {
+            afterId = InputParser.isDigits(parts[end - 2]) ? InputParser.parseId(parts[end - 2]) : -2;
+            afterPoints = InputParser.isDigits(parts[end - 1]) ? InputParser.parseId(parts[end - 1]) : -2;
+            end -= 3;
+        } else if (end >= 6 && "after".equalsIgnoreCase(parts[end - 2])) {
+            afterId = InputParser.isDigits(parts[end - 1]) ? InputParser.parseId(parts[end - 1]) : -2;
+            end -= 2;
+        }
+        int limit = InputParser.isDigits(parts[end - 1]) ? InputParser.parseId(parts[end - 1]) : -1;
+        if (!"top".equalsIgnoreCase(parts[end - 2]) || limit <= 0 || afterId < -1 || afterPoints < -1) {
+            out.println("Incorrect course page format.");
+            return true;
+        }
+        // Course names may contain spaces
+        String courseName = String.join(" ", Arrays.copyOfRange(parts, 1, end - 2));
+        if (!studentManager.displayCoursePage(courseName, limit, afterId, afterPoints, out)) {
+            out.println("Unknown course.");
+        }
+        metrics.record(TrackerMetrics.Operation.COURSE_DETAILS, start);
+        return true;
+    }
+
+    // distribution <course>
+    private boolean processDistribution(String command) {
+        String[] parts = command.split("\\s+", 2);
+        if (parts.length < 2 || !"distribution".equalsIgnoreCase(parts[0])) {
+            return false;
         }
+        long start = System.nanoTime();
+        if (!studentManager.displayDistribution(parts[1], out)) {
+            out.println("Unknown course.");
+        }
+        metrics.record(TrackerMetrics.Operation.DISTRIBUTION, start);
+        return true;
+    }
+
+    // rank <id> <course>
+    private boolean processRank(String command) {
+        String[] parts = command.split("\\s+", 3);
+        if (parts.length < 3 || !"rank".equalsIgnoreCase(parts[0])) {
+            return false;
+        }
+        if (!InputParser.isDigits(parts[1]) || InputParser.parseId(parts[1]) < 0) {
+            out.println("Incorrect ID format.");
+            return true;
+        }
+        long start = System.nanoTime();
+        if (!studentManager.displayRank(InputParser.parseId(parts[1]), parts[2], out)) {
+            out.println("Unknown course.");
+        }
+        metrics.record(TrackerMetrics.Operation.COURSE_DETAILS, start);
+        return true;
     }
 
-    private void findStudent() {
-        System.out.println("Enter an id or 'back' to return:");
-        while (true) {
-            String input = scanner.nextLine().trim();
-            if ("back".equalsIgnoreCase(input)) {
-                return;
+    // save list <file>, save course <name> <file>
+    private boolean processSave(String command) {
+        String[] parts = command.split("\\s+");
+        if (parts.length < 3 || !"save".equalsIgnoreCase(parts[0])) {
+            return false;
+        }
+
+        TextExporter exporter = new TextExporter(studentManager);
+        Path file = Path.of(parts[parts.length - 1]);
+        try {
+            if (parts.length == 3 && "list".equalsIgnoreCase(parts[1])) {
+                out.println("Saved " + exporter.exportStudentList(file) + " students to " + file + ".");
+            } else if (parts.length >= 4 && "course".equalsIgnoreCase(parts[1])) {
+                String courseName = String.join(" ", Arrays.copyOfRange(parts, 2, parts.length - 1));
+                int courseIndex = studentManager.getCourses().indexOf(courseName);
+                if (courseIndex < 0) {
+                    out.println("Unknown course.");
+                } else {
+                    out.println("Saved " + exporter.exportCourse(courseIndex, file) + " learners to " + file + ".");
+                }
+            } else {
+                return false;
             }
-            studentManager.findStudentById(input);
+        } catch (IOException e) {
+            out.println("Cannot write file " + file + ".");
         }
+        return true;
     }
 
-    private void handleCourseDetails() {
-        String input;
-        while (!(input = scanner.nextLine().trim()).equalsIgnoreCase("back")) {
-            if (!studentManager.displayCourseDetails(input)) {
-                System.out.println("Unknown course.");
+    // export <file>, export course <name> <file>
+    private boolean processExport(String command) {
+        String[] parts = command.split("\\s+");
+        if (parts.length < 2 || !"export".equalsIgnoreCase(parts[0])) {
+            return false;
+        }
+
+        BinaryExporter exporter = new BinaryExporter(studentManager);
+        Path file = Path.of(parts[parts.length - 1]);
+        try {
+            if (parts.length == 2) {
+                out.println("Exported " + exporter.exportRoster(file) + " students to " + file + ".");
+            } else if (parts.length >= 4 && "course".equalsIgnoreCase(parts[1])) {
+                String courseName = String.join(" ", Arrays.copyOfRange(parts, 2, parts.length - 1));
+                int courseIndex = studentManager.getCourses().indexOf(courseName);
+                if (courseIndex < 0) {
+                    out.println("Unknown course.");
+                } else {
+                    out.println("Exported " + exporter.exportCourse(courseIndex, file) + " learners to " + file + ".");
+                }
+            } else {
+                return false;
             }
+        } catch (IOException e) {
+            out.println("Cannot write file " + file + ".");
         }
+        return true;
     }
 
 }
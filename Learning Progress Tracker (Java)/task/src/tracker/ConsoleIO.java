@@ -0,0 +1,52 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * The one reader and writer shared by everything that talks to the user.
+ * <p>
+ * Output is buffered and only flushed when the next read would block, so an
+ * interactive user still sees every prompt while a piped script is processed
+ * without a system call per printed line.
+ */
+public class ConsoleIO {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    public ConsoleIO(InputStream in, OutputStream out) {
+        Charset charset = Charset.defaultCharset();
+        this.in = new BufferedReader(new InputStreamReader(in, charset), BUFFER_SIZE);
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE));
+    }
+
+    // Returns the next line, or null when the input is exhausted
+    public String readLine() {
+        try {
+            if (!in.ready()) {
+                out.flush();
+            }
+            return in.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public PrintWriter out() {
+        return out;
+    }
+
+    public void flush() {
+        out.flush();
+    }
+}
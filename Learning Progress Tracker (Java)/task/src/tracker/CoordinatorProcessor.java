@@ -0,0 +1,141 @@
+package tracker;
+
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+/**
+ * Runs a console session against a {@link PartitionCoordinator}. Lines are read in
+ * the same {@link SessionProcessor.Mode}s and answered with the same messages as in
+ * a single process; {@code add students}, {@code add points}, {@code find} by id or
+ * email, {@code list}, {@code distribution} and {@code statistics} with course details
+ * are supported.
+ */
+public class CoordinatorProcessor extends SessionProcessor {
+    // Commands of the single-process tracker that need state the coordinator does not have
+    private static final Set<String> LOCAL_ONLY_COMMANDS = Set.of("list", "notify", "metrics", "import", "activity",
+            "course", "save", "export", "rank");
+
+    private final PartitionCoordinator coordinator;
+
+    public CoordinatorProcessor(ConsoleIO console, PartitionCoordinator coordinator) {
+        super(console);
+        this.coordinator = coordinator;
+    }
+
+    // A partition that fails or goes away fails only the line that needed it
+    @Override
+    public void handleLine(String line) {
+        try {
+            super.handleLine(line);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            out.println("Partition error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected CourseRegistry getCourses() {
+        return coordinator.getCourses();
+    }
+
+    @Override
+    protected long getStudentCount() {
+        return getTotal(coordinator.getStudentCounts());
+    }
+
+    @Override
+    protected void addStudent(ParsedStudent student, String credentials) {
+        out.println((student.isValid() ? coordinator.addStudent(credentials) : student.error()).getMessage(null));
+    }
+
+    @Override
+    protected void addPoints(ParsedPoints points) {
+        out.println(coordinator.addPoints(points).getMessage(points.idText()));
+    }
+
+    @Override
+    protected void find(String query) {
+        String[] found = coordinator.find(query);
+        if (found == null) {
+            out.println("Only ids and emails can be searched on a partitioned tracker.");
+        } else {
+            for (String line : found) {
+                out.println(line);
+            }
+        }
+    }
+
+    @Override
+    protected boolean processOtherCommand(String command) {
+        switch (command.toLowerCase()) {
+            case "list":
+                listAllStudents();
+                return true;
+            case "statistics":
+                StudentManager.printStatistics(
+                        new StatisticsCalculator(coordinator.getCourses(), coordinator.getCourseStatistics()), out);
+                return true;
+            case "statistics recount":
+                out.println("This command is not available on a partitioned tracker.");
+                return true;
+            default:
+                String[] parts = command.split("\\s+", 2);
+                if (parts.length == 2 && "distribution".equalsIgnoreCase(parts[0])) {
+                    displayDistribution(parts[1]);
+                    return true;
+                }
+                if (LOCAL_ONLY_COMMANDS.contains(parts[0].toLowerCase())) {
+                    out.println("This command is not available on a partitioned tracker.");
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    // Every partition's ids are dense from its first id, so the counts are all that is needed
+    private void listAllStudents() {
+        int[] counts = coordinator.getStudentCounts();
+        if (getTotal(counts) == 0) {
+            out.println("No students found.");
+            return;
+        }
+        out.println("Students:");
+        for (int partition = 0; partition < counts.length; partition++) {
+            int firstId = PartitionCoordinator.firstStudentId(partition);
+            for (int id = firstId; id < firstId + counts[partition]; id++) {
+                out.println(id);
+            }
+        }
+    }
+
+    @Override
+    protected boolean displayCourseDetails(String courseName) {
+        CourseRegistry courses = coordinator.getCourses();
+        int courseIndex = courses.indexOf(courseName);
+        if (courseIndex < 0) {
+            return false;
+        }
+        out.println(courseName);
+        out.println("id\tpoints\tcompleted");
+        double threshold = courses.getCompletionThreshold(courseIndex);
+        coordinator.forEachLearner(courseIndex,
+                (id, points) -> out.printf("%d\t%d\t%.1f%%%n", id, points, points / threshold * 100));
+        return true;
+    }
+
+    private void displayDistribution(String courseName) {
+        int courseIndex = coordinator.getCourses().indexOf(courseName);
+        if (courseIndex < 0) {
+            out.println("Unknown course.");
+            return;
+        }
+        StudentManager.printDistribution(courseName, coordinator.getDistribution(courseIndex), out);
+    }
+
+    private static long getTotal(int[] counts) {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
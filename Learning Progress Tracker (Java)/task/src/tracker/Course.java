@@ -0,0 +1,7 @@
+package tracker;
+
+/**
+ * One course of the catalog. {@code id} is its dense index in the {@link CourseRegistry}.
+ */
+public record Course(int id, String name, int completionThreshold) {
+}
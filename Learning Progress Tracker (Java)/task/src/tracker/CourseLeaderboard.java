@@ -0,0 +1,277 @@
+package tracker;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ranked index of the students enrolled in one course, ordered by points
+ * (descending) and then by id (ascending).
+ * <p>
+ * Backed by a treap that keeps subtree sizes, so updates, top-N walks and
+ * rank lookups take logarithmic time instead of a full sort.
+ * <p>
+ * The treap is persistent: nodes are never modified, and an update copies the
+ * O(log n) nodes on its path and publishes the new root. A {@link Snapshot} is
+ * just a root, so readers get a consistent point-in-time view without locking
+ * and never hold up writers; versions nobody reads any more are left to the
+ * garbage collector. Writers need no lock either: an update builds its version
+ * from the root it read and installs it with a compare-and-set, rebuilding
+ * from the newer root if another update got there first. Updates to the same
+ * student must still be serialized by the caller, so that each one finds the
+ * entry the previous one left.
+ */
+public class CourseLeaderboard {
+    private final AtomicReference<Node> root = new AtomicReference<>();
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int id, int points);
+    }
+
+    private static final class Node {
+        final int id;
+        final int points;
+        final int priority;
+        final int size;
+        final Node left;
+        final Node right;
+
+        Node(int id, int points, int priority, Node left, Node right) {
+            this.id = id;
+            this.points = points;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        Node with(Node newLeft, Node newRight) {
+            return new Node(id, points, priority, newLeft, newRight);
+        }
+    }
+
+    /**
+     * An immutable version of the leaderboard.
+     */
+    public static final class Snapshot {
+        private final Node root;
+
+        private Snapshot(Node root) {
+            this.root = root;
+        }
+
+        public int size() {
+            return CourseLeaderboard.size(root);
+        }
+
+        // Returns the number of students with more than the given points, i.e. the rank of the first one at or below them
+        public int countAbove(int points) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                if (node.points > points) {
+                    count += CourseLeaderboard.size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return count;
+        }
+
+        // Returns the number of entries ranked at or before (id, points), whether or not that entry is present.
+        // Used as a cursor: the entries after it keep their position even if the entry itself changes.
+        public int countUpTo(int id, int points) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                if (compare(id, points, node) < 0) {
+                    node = node.left;
+                } else {
+                    count += CourseLeaderboard.size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            return count;
+        }
+
+        // Returns the zero-based rank of the student, or -1 if the student is not on the leaderboard with these points
+        public int rankOf(int id, int points) {
+            if (!contains(id, points)) {
+                return -1;
+            }
+            // Everyone with more points, then the ties with a lower id
+            return countAbove(points) + countTiesBefore(id, points);
+        }
+
+        private boolean contains(int id, int points) {
+            Node node = root;
+            while (node != null) {
+                int cmp = compare(id, points, node);
+                if (cmp == 0) {
+                    return true;
+                }
+                node = cmp < 0 ? node.left : node.right;
+            }
+            return false;
+        }
+
+        // Returns the number of entries with exactly these points and a lower id
+        private int countTiesBefore(int id, int points) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                if (node.points > points) {
+                    node = node.right;
+                } else if (node.points < points || node.id >= id) {
+                    node = node.left;
+                } else {
+                    count += tiesIn(node.left, points) + 1;
+                    node = node.right;
+                }
+            }
+            return count;
+        }
+
+        // Returns the number of entries with exactly these points in a subtree whose entries all rank before a tie
+        private static int tiesIn(Node node, int points) {
+            int count = 0;
+            while (node != null) {
+                if (node.points > points) {
+                    node = node.right;
+                } else {
+                    count += CourseLeaderboard.size(node.right) + 1;
+                    node = node.left;
+                }
+            }
+            return count;
+        }
+
+        public void forEachInRankOrder(int fromRank, int limit, EntryVisitor visitor) {
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            int skip = fromRank;
+            while (node != null) {
+                int leftSize = CourseLeaderboard.size(node.left);
+                if (skip < leftSize) {
+                    path.push(node);
+                    node = node.left;
+                } else if (skip == leftSize) {
+                    path.push(node);
+                    break;
+                } else {
+                    skip -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+
+            int visited = 0;
+            while (!path.isEmpty() && visited < limit) {
+                Node current = path.pop();
+                visitor.visit(current.id, current.points);
+                visited++;
+                for (Node next = current.right; next != null; next = next.left) {
+                    path.push(next);
+                }
+            }
+        }
+
+        // Visits the first 'limit' entries in rank order, without going further down the treap than they need
+        public void forEachTop(int limit, EntryVisitor visitor) {
+            forEachInRankOrder(0, limit, visitor);
+        }
+    }
+
+    public void update(int id, int oldPoints, int newPoints) {
+        int priority = ThreadLocalRandom.current().nextInt();
+        Node oldRoot;
+        Node newRoot;
+        do {
+            oldRoot = root.get();
+            newRoot = oldRoot;
+            if (oldPoints > 0) {
+                newRoot = remove(newRoot, id, oldPoints);
+            }
+            if (newPoints > 0) {
+                newRoot = insert(newRoot, id, newPoints, priority);
+            }
+        } while (!root.compareAndSet(oldRoot, newRoot));
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(root.get());
+    }
+
+    public int size() {
+        return size(root.get());
+    }
+
+    private static Node insert(Node node, int id, int points, int priority) {
+        if (node == null) {
+            return new Node(id, points, priority, null, null);
+        }
+        if (priority > node.priority) {
+            Node[] parts = split(node, id, points);
+            return new Node(id, points, priority, parts[0], parts[1]);
+        }
+        if (compare(id, points, node) < 0) {
+            return node.with(insert(node.left, id, points, priority), node.right);
+        }
+        return node.with(node.left, insert(node.right, id, points, priority));
+    }
+
+    private static Node remove(Node node, int id, int points) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(id, points, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            return node.with(remove(node.left, id, points), node.right);
+        }
+        return node.with(node.left, remove(node.right, id, points));
+    }
+
+    // Splits into entries ranked before (id, points) and entries ranked after it
+    private static Node[] split(Node node, int id, int points) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(id, points, node) < 0) {
+            Node[] parts = split(node.left, id, points);
+            parts[1] = node.with(parts[1], node.right);
+            return parts;
+        }
+        Node[] parts = split(node.right, id, points);
+        parts[0] = node.with(node.left, parts[0]);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    private static int compare(int id, int points, Node node) {
+        if (points != node.points) {
+            return points > node.points ? -1 : 1;
+        }
+        return Integer.compare(id, node.id);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
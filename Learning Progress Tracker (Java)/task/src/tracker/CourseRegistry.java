@@ -0,0 +1,95 @@
+package tracker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The course catalog. Course names are resolved once to dense int ids,
+ * which is what the rest of the tracker uses to index points columns,
+ * leaderboards, statistics and notification bitmasks.
+ * <p>
+ * A catalog file has one course per line, as its name followed by its
+ * completion threshold in points, e.g. {@code Java 600}. Blank lines and
+ * lines starting with {@code #} are ignored. Catalog order is display order.
+ */
+public class CourseRegistry {
+    // Notified and pending courses are tracked in a long bitmask per student
+    public static final int MAX_COURSES = Long.SIZE;
+
+    private final Course[] courses;
+    private final Map<String, Integer> idsByName = new HashMap<>();
+
+    public CourseRegistry(List<Course> courses) {
+        if (courses.isEmpty() || courses.size() > MAX_COURSES) {
+            throw new IllegalArgumentException("A catalog needs between 1 and " + MAX_COURSES + " courses");
+        }
+        this.courses = courses.toArray(new Course[0]);
+        for (int i = 0; i < this.courses.length; i++) {
+            if (this.courses[i].id() != i) {
+                throw new IllegalArgumentException("Course " + this.courses[i].name() + " should have id " + i);
+            }
+            if (idsByName.put(this.courses[i].name(), i) != null) {
+                throw new IllegalArgumentException("Duplicate course " + this.courses[i].name());
+            }
+        }
+    }
+
+    public static CourseRegistry defaultCatalog() {
+        return new CourseRegistry(List.of(
+                new Course(0, CourseConstants.JAVA, CourseConstants.JAVA_COMPLETION_THRESHOLD),
+                new Course(1, CourseConstants.DSA, CourseConstants.DSA_COMPLETION_THRESHOLD),
+                new Course(2, CourseConstants.DATABASES, CourseConstants.DATABASES_COMPLETION_THRESHOLD),
+                new Course(3, CourseConstants.SPRING, CourseConstants.SPRING_COMPLETION_THRESHOLD)));
+    }
+
+    public static CourseRegistry load(Path catalog) throws IOException {
+        List<Course> courses = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(catalog, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.lastIndexOf(' ');
+            try {
+                int threshold = Integer.parseInt(line.substring(separator + 1));
+                if (separator <= 0 || threshold <= 0) {
+                    throw new NumberFormatException();
+                }
+                courses.add(new Course(courses.size(), line.substring(0, separator).trim(), threshold));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid course on line " + lineNumber + " of " + catalog + ": " + line);
+            }
+        }
+        return new CourseRegistry(courses);
+    }
+
+    public int size() {
+        return courses.length;
+    }
+
+    public Course get(int id) {
+        return courses[id];
+    }
+
+    public String getName(int id) {
+        return courses[id].name();
+    }
+
+    public int getCompletionThreshold(int id) {
+        return courses[id].completionThreshold();
+    }
+
+    // Returns the course id, or -1 for an unknown course; names are case-sensitive
+    public int indexOf(String name) {
+        Integer id = idsByName.get(name);
+        return id == null ? -1 : id;
+    }
+}
@@ -0,0 +1,153 @@
+package tracker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-course aggregates that are kept up to date on every points update,
+ * so the statistics command never has to rescan the whole student roster.
+ * <p>
+ * The counters are split into stripes picked by student id, like the
+ * student locks, so updates for different students rarely touch the same
+ * stripe even within one course. Each stripe holds an immutable array of
+ * all its counters; an update copies it, adds to the copy and installs it
+ * with a compare-and-set. A {@link Snapshot} adds the stripes up without
+ * locking, so it counts every update for all courses or for none, though
+ * not necessarily all the updates that finished before it was taken.
+ * Individual submissions are also kept in a {@link SubmissionHistory} for windowed queries.
+ */
+public class CourseStatistics {
+    private static final int STRIPES = 64;
+
+    private final int courseCount;
+    // Per stripe: enrolled students, then submissions, then total points, courseCount entries each
+    private final AtomicReferenceArray<long[]> stripes;
+    private final SubmissionHistory history;
+
+    /**
+     * The per-course counters of a set of whole updates.
+     */
+    public static final class Snapshot {
+        private final long[] enrolledStudents;
+        private final long[] submissions;
+        private final long[] totalPoints;
+
+        Snapshot(long[] enrolledStudents, long[] submissions, long[] totalPoints) {
+            this.enrolledStudents = enrolledStudents;
+            this.submissions = submissions;
+            this.totalPoints = totalPoints;
+        }
+
+        public int getCourseCount() {
+            return enrolledStudents.length;
+        }
+
+        public long getEnrolledStudents(int courseIndex) {
+            return enrolledStudents[courseIndex];
+        }
+
+        public long getSubmissions(int courseIndex) {
+            return submissions[courseIndex];
+        }
+
+        public long getTotalPoints(int courseIndex) {
+            return totalPoints[courseIndex];
+        }
+
+        public boolean hasEnrollments() {
+            for (long enrolled : enrolledStudents) {
+                if (enrolled > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public CourseStatistics(int courseCount) {
+        this.courseCount = courseCount;
+        stripes = new AtomicReferenceArray<>(STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.set(i, new long[3 * courseCount]);
+        }
+        history = new SubmissionHistory(courseCount);
+    }
+
+    // Must be called before the new points are added to the student
+    public void recordPoints(int id, int[] currentPoints, int[] newPoints) {
+        boolean changed = false;
+        for (int points : newPoints) {
+            changed |= points > 0;
+        }
+        if (!changed) {
+            return;
+        }
+
+        int stripe = id & (STRIPES - 1);
+        long[] previous;
+        long[] next;
+        do {
+            previous = stripes.get(stripe);
+            next = previous.clone();
+            for (int i = 0; i < newPoints.length; i++) {
+                if (newPoints[i] > 0) {
+                    if (currentPoints[i] == 0) {
+                        next[i]++;
+                    }
+                    next[courseCount + i]++;
+                    next[2 * courseCount + i] += newPoints[i];
+                }
+            }
+        } while (!stripes.compareAndSet(stripe, previous, next));
+        history.record(newPoints);
+    }
+
+    // Only used while recovering, before the statistics are shared
+    public void restore(int courseIndex, long enrolled, long submissionCount, long points) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            long[] next = stripes.get(stripe).clone();
+            // The whole count goes to the first stripe
+            next[courseIndex] = stripe == 0 ? enrolled : 0;
+            next[courseCount + courseIndex] = stripe == 0 ? submissionCount : 0;
+            next[2 * courseCount + courseIndex] = stripe == 0 ? points : 0;
+            stripes.set(stripe, next);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] sums = new long[3 * courseCount];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            long[] counters = stripes.get(stripe);
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += counters[i];
+            }
+        }
+        return new Snapshot(Arrays.copyOfRange(sums, 0, courseCount),
+                Arrays.copyOfRange(sums, courseCount, 2 * courseCount),
+                Arrays.copyOfRange(sums, 2 * courseCount, 3 * courseCount));
+    }
+
+    public int getCourseCount() {
+        return courseCount;
+    }
+
+    public long getEnrolledStudents(int courseIndex) {
+        return snapshot().getEnrolledStudents(courseIndex);
+    }
+
+    public long getSubmissions(int courseIndex) {
+        return snapshot().getSubmissions(courseIndex);
+    }
+
+    public long getTotalPoints(int courseIndex) {
+        return snapshot().getTotalPoints(courseIndex);
+    }
+
+    public SubmissionHistory getHistory() {
+        return history;
+    }
+
+    public boolean hasEnrollments() {
+        return snapshot().hasEnrollments();
+    }
+}
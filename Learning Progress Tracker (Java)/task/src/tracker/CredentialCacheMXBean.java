@@ -0,0 +1,22 @@
+package tracker;
+
+/**
+ * JMX view of the cold tier of {@link CredentialStore}: how often reads of cold
+ * credentials are served from the cache, and how much of them lives on disk.
+ */
+public interface CredentialCacheMXBean {
+
+    // Reads of cold records served from the cache
+    long getHits();
+
+    // Reads of cold records that had to load them from the mapped segment
+    long getMisses();
+
+    double getHitRate();
+
+    int getCachedStudents();
+
+    long getColdBytes();
+
+    long getHeapBytes();
+}
@@ -0,0 +1,356 @@
+package tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Names and emails of all students, by row, stored as "first\0last\0email".
+ * <p>
+ * New records are appended to a byte area on the heap. In tiered mode that area
+ * is only a tail: once it reaches {@link #TAIL_BYTES}, it is written to a segment
+ * file and memory-mapped read-only, so older credentials are paged in by the OS on
+ * demand instead of taking heap. Cold records of the students in use, whether
+ * read by {@code notify} or just looked up by {@code find} or a points update, are
+ * kept decoded in an LRU cache of a configurable number of students; only those
+ * cold reads count as cache hits or misses. Scans such as name index merges and
+ * snapshots read through {@link #peek} and leave the cache alone, so they cannot
+ * flush the students that are in use.
+ * <p>
+ * The segment file only mirrors what the journal and snapshots already hold; it is
+ * truncated on every start. Like the store, this class relies on the caller to
+ * serialize {@link #add} against readers; only the cache has its own lock.
+ */
+public class CredentialStore implements AutoCloseable, CredentialCacheMXBean {
+    static final int TAIL_BYTES = 1 << 20;
+    // The most a byte array can hold on common JVMs
+    private static final int MAX_TAIL_BYTES = Integer.MAX_VALUE - 8;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte FIELD_SEPARATOR = 0;
+
+    private final FileChannel segment;
+    private final Map<Integer, Credentials> hot;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Row i occupies [offsets[i], offsets[i + 1]) of the concatenation of the mapped chunks and the tail
+    // Offsets are longs, as the segment file grows past 2 GiB with enough students
+    private long[] offsets = new long[INITIAL_CAPACITY + 1];
+    private int size;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private long[] chunkStarts = new long[0];
+    private byte[] tail = new byte[INITIAL_CAPACITY * 32];
+    private long tailStart;
+
+    public record Credentials(String firstName, String lastName, String email) {
+    }
+
+    private CredentialStore(FileChannel segment, int hotStudents) {
+        this.segment = segment;
+        this.hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Credentials> eldest) {
+                return size() > hotStudents;
+            }
+        };
+    }
+
+    // Keeps every record on the heap
+    public static CredentialStore inMemory() {
+        return new CredentialStore(null, 0);
+    }
+
+    // Spills records to the segment file and caches up to 'hotStudents' cold records
+    public static CredentialStore tiered(Path segmentFile, int hotStudents) throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new CredentialStore(channel, hotStudents);
+    }
+
+    public boolean isTiered() {
+        return segment != null;
+    }
+
+    // Returns the new record's row
+    public int add(String firstName, String lastName, String email) {
+        int length = firstName.length() + lastName.length() + email.length() + 2;
+        if (segment != null && offsets[size] - tailStart >= TAIL_BYTES) {
+            spillTail();
+        }
+        if (size + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        long required = offsets[size] - tailStart + length;
+        if (required > tail.length) {
+            if (required > MAX_TAIL_BYTES) {
+                throw new IllegalStateException("In-memory credentials are limited to 2 GiB; use a cold store");
+            }
+            // A spilling tail never holds much more than TAIL_BYTES, so it stops doubling there
+            long grown = Math.min(tail.length * 2L, segment == null ? MAX_TAIL_BYTES : TAIL_BYTES + length);
+            tail = Arrays.copyOf(tail, (int) Math.max(required, grown));
+        }
+        int position = (int) (offsets[size] - tailStart);
+        position = appendText(position, firstName);
+        tail[position++] = FIELD_SEPARATOR;
+        position = appendText(position, lastName);
+        tail[position++] = FIELD_SEPARATOR;
+        position = appendText(position, email);
+        offsets[size + 1] = tailStart + position;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Reads a record for use, through the cache
+    public Credentials get(int row) {
+        if (segment == null || offsets[row] >= tailStart) {
+            return peek(row);
+        }
+        synchronized (hot) {
+            Credentials cached = hot.get(row);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        Credentials loaded = peek(row);
+        synchronized (hot) {
+            hot.put(row, loaded);
+        }
+        return loaded;
+    }
+
+    // Caches a cold record, or refreshes its place in the cache, because its student is in use
+    public void touch(int row) {
+        if (segment != null && offsets[row] < tailStart) {
+            get(row);
+        }
+    }
+
+    // Reads a record without touching the cache
+    public Credentials peek(int row) {
+        byte[] record = bytesOf(row);
+        int from = record == tail ? (int) (offsets[row] - tailStart) : 0;
+        int end = from + (int) (offsets[row + 1] - offsets[row]);
+        int firstEnd = fieldEnd(record, from);
+        int lastEnd = fieldEnd(record, firstEnd + 1);
+        return new Credentials(decode(record, from, firstEnd), decode(record, firstEnd + 1, lastEnd),
+                decode(record, lastEnd + 1, end));
+    }
+
+    // Reads one field (0 first name, 1 last name, 2 email) without touching the cache
+    public String peekField(int row, int field) {
+        byte[] record = bytesOf(row);
+        int start = record == tail ? (int) (offsets[row] - tailStart) : 0;
+        int end = start + (int) (offsets[row + 1] - offsets[row]);
+        for (int i = 0; i < field; i++) {
+            start = fieldEnd(record, start) + 1;
+        }
+        return decode(record, start, field == 2 ? end : fieldEnd(record, start));
+    }
+
+    // Compares one field with an ASCII string, ignoring case, without decoding it or touching the cache
+    public boolean fieldEqualsIgnoreCase(int row, int field, String value) {
+        byte[] record = bytesOf(row);
+        int start = record == tail ? (int) (offsets[row] - tailStart) : 0;
+        int end = start + (int) (offsets[row + 1] - offsets[row]);
+        for (int i = 0; i < field; i++) {
+            start = fieldEnd(record, start) + 1;
+        }
+        if (field < 2) {
+            end = fieldEnd(record, start);
+        }
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (toLowerCase(record[start + i]) != toLowerCase(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Compares a field of two rows in the case-insensitive order of their ASCII bytes, reading
+     * them where they are stored: nothing is decoded, copied or put in the cache.
+     */
+    public int compareFieldsIgnoreCase(int row, int field, int otherRow, int otherField) {
+        int chunk = chunkOf(row);
+        int otherChunk = chunkOf(otherRow);
+        long start = fieldStart(chunk, row, field);
+        int length = (int) (fieldEnd(chunk, row, field, start) - start);
+        long otherStart = fieldStart(otherChunk, otherRow, otherField);
+        int otherLength = (int) (fieldEnd(otherChunk, otherRow, otherField, otherStart) - otherStart);
+        int common = Math.min(length, otherLength);
+        for (int i = 0; i < common; i++) {
+            int difference = toLowerCase(byteAt(chunk, start + i)) - toLowerCase(byteAt(otherChunk, otherStart + i));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - otherLength;
+    }
+
+    // Like compareFieldsIgnoreCase against a key; with prefixOnly set, a field that starts with the key compares as equal
+    public int compareFieldIgnoreCase(int row, int field, String key, boolean prefixOnly) {
+        int chunk = chunkOf(row);
+        long start = fieldStart(chunk, row, field);
+        int length = (int) (fieldEnd(chunk, row, field, start) - start);
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            int difference = toLowerCase(byteAt(chunk, start + i)) - Character.toLowerCase(key.charAt(i));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        if (prefixOnly && length >= key.length()) {
+            return 0;
+        }
+        return length - key.length();
+    }
+
+    static int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    // The mapped chunk holding the row, or -1 if it is still in the tail
+    private int chunkOf(int row) {
+        long start = offsets[row];
+        if (start >= tailStart) {
+            return -1;
+        }
+        int chunk = Arrays.binarySearch(chunkStarts, start);
+        return chunk < 0 ? -chunk - 2 : chunk;
+    }
+
+    private int byteAt(int chunk, long position) {
+        if (chunk < 0) {
+            return tail[(int) (position - tailStart)];
+        }
+        return chunks[chunk].get((int) (position - chunkStarts[chunk]));
+    }
+
+    private long fieldStart(int chunk, int row, int field) {
+        long position = offsets[row];
+        for (int i = 0; i < field; i++) {
+            while (byteAt(chunk, position) != FIELD_SEPARATOR) {
+                position++;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private long fieldEnd(int chunk, int row, int field, long start) {
+        if (field == 2) {
+            return offsets[row + 1];
+        }
+        long position = start;
+        while (byteAt(chunk, position) != FIELD_SEPARATOR) {
+            position++;
+        }
+        return position;
+    }
+
+    // The tail itself for records still on the heap, or a copy of the record from its mapped chunk
+    private byte[] bytesOf(int row) {
+        int chunk = chunkOf(row);
+        if (chunk < 0) {
+            return tail;
+        }
+        byte[] record = new byte[(int) (offsets[row + 1] - offsets[row])];
+        chunks[chunk].get((int) (offsets[row] - chunkStarts[chunk]), record);
+        return record;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public int getCachedStudents() {
+        synchronized (hot) {
+            return hot.size();
+        }
+    }
+
+    @Override
+    public long getColdBytes() {
+        return tailStart;
+    }
+
+    @Override
+    public long getHeapBytes() {
+        return tail.length + (long) Long.BYTES * offsets.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    // Records never span chunks, because only whole records are ever spilled
+    private void spillTail() {
+        int length = (int) (offsets[size] - tailStart);
+        try {
+            ByteBuffer source = ByteBuffer.wrap(tail, 0, length);
+            while (source.hasRemaining()) {
+                segment.write(source, tailStart + source.position());
+            }
+            ByteBuffer mapped = segment.map(FileChannel.MapMode.READ_ONLY, tailStart, length);
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunkStarts = Arrays.copyOf(chunkStarts, chunkStarts.length + 1);
+            chunks[chunks.length - 1] = mapped;
+            chunkStarts[chunkStarts.length - 1] = tailStart;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill credentials to the cold segment", e);
+        }
+        tailStart += length;
+    }
+
+    private int appendText(int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            tail[position++] = (byte) value.charAt(i);
+        }
+        return position;
+    }
+
+    private static int fieldEnd(byte[] record, int start) {
+        int end = start;
+        while (record[end] != FIELD_SEPARATOR) {
+            end++;
+        }
+        return end;
+    }
+
+    private static String decode(byte[] record, int start, int end) {
+        return new String(record, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+}
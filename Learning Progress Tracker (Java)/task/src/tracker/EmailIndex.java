@@ -0,0 +1,136 @@
+package tracker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds a student's row by email, ignoring ASCII case, without keeping the emails twice.
+ * <p>
+ * Every entry is one long in an open-addressing table with linear probing: the upper
+ * half holds a 32-bit fingerprint of the lower-cased email and the lower half the row
+ * plus one, so 0 marks a free slot. The home slot comes from the fingerprint too,
+ * which lets the table grow without reading any email back. A fingerprint match is
+ * only a candidate; it is confirmed against the email bytes in the
+ * {@link CredentialStore}. The table lives in a direct buffer outside the heap and is
+ * kept at most two thirds full, so an entry takes 12 to 24 bytes.
+ * <p>
+ * The optional Bloom filter answers most lookups of new emails without probing the
+ * table: it has one byte per slot, and all bits of a fingerprint fall in one 64-bit
+ * word, so a lookup reads a single word. Entries are never removed. Like the store,
+ * writers must be serialized against readers by the caller.
+ */
+public class EmailIndex {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int BLOOM_BITS_PER_SLOT = 8;
+
+    private final CredentialStore credentials;
+    private final boolean bloomFilter;
+    private ByteBuffer table;
+    private long[] bloom;
+    private int mask;
+    private int size;
+
+    public EmailIndex(CredentialStore credentials, boolean bloomFilter) {
+        this.credentials = credentials;
+        this.bloomFilter = bloomFilter;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the row of the student with this email, ignoring case, or -1
+    public int find(String email) {
+        int fingerprint = fingerprintOf(email);
+        if (bloomFilter && !mightContain(fingerprint)) {
+            return -1;
+        }
+        for (int slot = fingerprint & mask; ; slot = (slot + 1) & mask) {
+            long entry = table.getLong(slot * Long.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            int row = (int) entry - 1;
+            if ((int) (entry >>> 32) == fingerprint && credentials.fieldEqualsIgnoreCase(row, 2, email)) {
+                return row;
+            }
+        }
+    }
+
+    // The caller has checked that the email is not in the index yet
+    public void add(String email, int row) {
+        if ((size + 1) * 3L > (mask + 1) * 2L) {
+            grow();
+        }
+        insert(fingerprintOf(email), row);
+        size++;
+    }
+
+    // Off-heap bytes of the table plus heap bytes of the Bloom filter
+    public long getMemoryBytes() {
+        return table.capacity() + (bloom == null ? 0 : (long) bloom.length * Long.BYTES);
+    }
+
+    private void insert(int fingerprint, int row) {
+        int slot = fingerprint & mask;
+        while (table.getLong(slot * Long.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.putLong(slot * Long.BYTES, (long) fingerprint << 32 | (row + 1L));
+        if (bloomFilter) {
+            bloom[bloomWord(fingerprint)] |= bloomBits(fingerprint);
+        }
+    }
+
+    private void grow() {
+        ByteBuffer old = table;
+        int oldCapacity = mask + 1;
+        allocate(oldCapacity * 2);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long entry = old.getLong(slot * Long.BYTES);
+            if (entry != 0) {
+                insert((int) (entry >>> 32), (int) entry - 1);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        mask = capacity - 1;
+        if (bloomFilter) {
+            bloom = new long[Math.max(1, capacity / Long.SIZE * BLOOM_BITS_PER_SLOT)];
+        }
+    }
+
+    private boolean mightContain(int fingerprint) {
+        long bits = bloomBits(fingerprint);
+        return (bloom[bloomWord(fingerprint)] & bits) == bits;
+    }
+
+    // The word is picked by the fingerprint's upper bits, which the table's slot does not depend on
+    private int bloomWord(int fingerprint) {
+        return (int) (((fingerprint * 0x9E3779B97F4A7C15L) >>> 32 & 0xFFFFFFFFL) % bloom.length);
+    }
+
+    // Four bits of one word, from four 6-bit slices of a remix of the fingerprint
+    private static long bloomBits(int fingerprint) {
+        long mixed = mix(fingerprint * 0xC2B2AE3D27D4EB4FL);
+        return 1L << (mixed & 63) | 1L << (mixed >>> 6 & 63) | 1L << (mixed >>> 12 & 63) | 1L << (mixed >>> 18 & 63);
+    }
+
+    // FNV-1a over the lower-cased chars, finished with a 64-bit mix; emails are ASCII
+    static int fingerprintOf(String email) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash = (hash ^ CredentialStore.toLowerCase(email.charAt(i))) * 0x100000001B3L;
+        }
+        return (int) (mix(hash) >>> 32);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,280 @@
+package tracker;
+
+/**
+ * Single-pass validation of the lines typed into {@code add students},
+ * {@code add points} and {@code find}, and the tokenizer for {@code find} queries.
+ * <p>
+ * Behaves exactly like trimming the line, splitting it on {@code \s+} and
+ * checking the parts with the original regular expressions, but walks the
+ * characters once and never compiles a pattern or builds a token array.
+ */
+public final class InputParser {
+    private InputParser() {
+    }
+
+    public static ParsedStudent parseStudent(String credentials) {
+        int start = trimStart(credentials);
+        int end = trimEnd(credentials, start);
+
+        // First name is the first token, email the last one, last name everything in between
+        int firstNameEnd = tokenEnd(credentials, start, end);
+        int emailStart = lastTokenStart(credentials, start, end);
+        if (firstNameEnd >= emailStart) {
+            return ParsedStudent.invalid(Outcome.INCORRECT_CREDENTIALS);
+        }
+        int lastNameStart = tokenStart(credentials, firstNameEnd, end);
+        if (lastNameStart >= emailStart) {
+            return ParsedStudent.invalid(Outcome.INCORRECT_CREDENTIALS);
+        }
+
+        if (!isValidNamePart(credentials, start, firstNameEnd)) {
+            return ParsedStudent.invalid(Outcome.INCORRECT_FIRST_NAME);
+        }
+        int lastNameEnd = lastNameStart;
+        int tokens = 0;
+        for (int i = lastNameStart; i < emailStart; i = tokenStart(credentials, lastNameEnd, emailStart)) {
+            lastNameEnd = tokenEnd(credentials, i, emailStart);
+            if (!isValidNamePart(credentials, i, lastNameEnd)) {
+                return ParsedStudent.invalid(Outcome.INCORRECT_LAST_NAME);
+            }
+            tokens++;
+        }
+        if (!isValidEmail(credentials, emailStart, end)) {
+            return ParsedStudent.invalid(Outcome.INCORRECT_EMAIL);
+        }
+
+        String lastName = tokens == 1
+                ? credentials.substring(lastNameStart, lastNameEnd)
+                : joinTokens(credentials, lastNameStart, lastNameEnd);
+        return ParsedStudent.valid(credentials.substring(start, firstNameEnd), lastName,
+                credentials.substring(emailStart, end));
+    }
+
+    // Expects an id followed by one points value per course of the catalog
+    public static ParsedPoints parsePoints(String inputData, int courseCount) {
+        int start = trimStart(inputData);
+        int end = trimEnd(inputData, start);
+        if (countTokens(inputData, start, end) != 1 + courseCount) {
+            return ParsedPoints.invalid(null, Outcome.INCORRECT_POINTS_FORMAT);
+        }
+
+        int idEnd = tokenEnd(inputData, start, end);
+        long id = parseInt(inputData, start, idEnd);
+        if (id < Integer.MIN_VALUE) {
+            return ParsedPoints.invalid(inputData.substring(start, idEnd), Outcome.STUDENT_NOT_FOUND);
+        }
+
+        int[] points = new int[courseCount];
+        int tokenEnd = idEnd;
+        for (int i = 0; i < points.length; i++) {
+            int tokenStart = tokenStart(inputData, tokenEnd, end);
+            tokenEnd = tokenEnd(inputData, tokenStart, end);
+            long value = parseInt(inputData, tokenStart, tokenEnd);
+            if (value < 0) {
+                return ParsedPoints.invalid(null, Outcome.INCORRECT_POINTS_FORMAT);
+            }
+            points[i] = (int) value;
+        }
+        return ParsedPoints.valid((int) id, points);
+    }
+
+    // The tokens of a command line, like trimming it and splitting it on "\s+"
+    public static String[] splitTokens(String line) {
+        int start = trimStart(line);
+        int end = trimEnd(line, start);
+        String[] tokens = new String[countTokens(line, start, end)];
+        if (start == end) {
+            tokens[0] = "";
+            return tokens;
+        }
+        int count = 0;
+        for (int i = start; i < end; i = tokenStart(line, i, end)) {
+            int tokenEnd = tokenEnd(line, i, end);
+            tokens[count++] = line.substring(i, tokenEnd);
+            i = tokenEnd;
+        }
+        return tokens;
+    }
+
+    // Returns true if the input consists of ASCII digits only, like matching "\d+"
+    public static boolean isDigits(String input) {
+        if (input.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Parses a string accepted by isDigits, returns -1 if it does not fit in an int
+    public static int parseId(String digits) {
+        long id = parseInt(digits, 0, digits.length());
+        return id < 0 ? -1 : (int) id;
+    }
+
+    private static boolean isValidNamePart(String s, int start, int end) {
+        if (end - start < 2 || !isLetter(s.charAt(start)) || !isLetter(s.charAt(end - 1))) {
+            return false;
+        }
+        boolean previousWasSymbol = false;
+        for (int i = start + 1; i < end - 1; i++) {
+            char c = s.charAt(i);
+            if (isLetter(c)) {
+                previousWasSymbol = false;
+            } else if (c == '\'' || c == '-') {
+                if (previousWasSymbol) {
+                    return false;
+                }
+                previousWasSymbol = true;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Equivalent to "[\w.-]+@[\w-]+(\.[\w-]+)*\.[\w-]+"
+    private static boolean isValidEmail(String s, int start, int end) {
+        int at = start;
+        while (at < end && s.charAt(at) != '@') {
+            char c = s.charAt(at);
+            if (!isWordChar(c) && c != '.' && c != '-') {
+                return false;
+            }
+            at++;
+        }
+        if (at == start || at == end) {
+            return false;
+        }
+
+        int labels = 0;
+        int labelLength = 0;
+        for (int i = at + 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labels++;
+                labelLength = 0;
+            } else if (isWordChar(c) || c == '-') {
+                labelLength++;
+            } else {
+                return false;
+            }
+        }
+        return labelLength > 0 && labels > 0;
+    }
+
+    /*
+     * Same rules as Integer.parseInt: optional sign, at least one digit, no overflow.
+     * Returns the value, or Long.MIN_VALUE if the token is not a valid int.
+     */
+    private static long parseInt(String s, int start, int end) {
+        if (start >= end) {
+            return Long.MIN_VALUE;
+        }
+        boolean negative = false;
+        int i = start;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) {
+                return Long.MIN_VALUE;
+            }
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                return Long.MIN_VALUE;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private static String joinTokens(String s, int start, int end) {
+        StringBuilder joined = new StringBuilder(end - start);
+        for (int i = start; i < end; i = tokenStart(s, i, end)) {
+            if (joined.length() > 0) {
+                joined.append(' ');
+            }
+            int tokenEnd = tokenEnd(s, i, end);
+            joined.append(s, i, tokenEnd);
+            i = tokenEnd;
+        }
+        return joined.toString();
+    }
+
+    private static int countTokens(String s, int start, int end) {
+        if (start == end) {
+            return 1; // "".split("\\s+") yields a single empty token
+        }
+        int tokens = 0;
+        for (int i = start; i < end; i = tokenStart(s, i, end)) {
+            tokens++;
+            i = tokenEnd(s, i, end);
+        }
+        return tokens;
+    }
+
+    private static int trimStart(String s) {
+        int start = 0;
+        while (start < s.length() && s.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String s, int start) {
+        int end = s.length();
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int tokenStart(String s, int from, int end) {
+        while (from < end && isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int tokenEnd(String s, int from, int end) {
+        while (from < end && !isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int lastTokenStart(String s, int start, int end) {
+        int i = end;
+        while (i > start && !isWhitespace(s.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    // The characters matched by the regex class \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWordChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+}
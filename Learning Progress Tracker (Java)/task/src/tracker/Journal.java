@@ -0,0 +1,274 @@
+package tracker;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of every change made to a {@link StudentManager}.
+ * <p>
+ * Each record is {@code [int length][byte type][payload][int crc32]}, where
+ * the checksum covers the type and payload. Records are collected in memory
+ * and written through a {@link FileChannel} in groups. Every append returns
+ * the record's sequence number, and {@link #awaitDurable} blocks until that
+ * record has been forced to disk: the first waiter writes and forces
+ * everything appended so far, and the waiters that queue up behind it while
+ * it forces are covered by the next single write and force. A full buffer is
+ * committed immediately. A torn record at the end of the file, left behind by
+ * a crash, is detected by its checksum and dropped on replay.
+ */
+public class Journal implements AutoCloseable {
+    static final byte STUDENT_ADDED = 1;
+    static final byte POINTS_ADDED = 2;
+    static final byte NOTIFIED = 3;
+
+    private static final int MAGIC = 0x4C50544A; // "LPTJ"
+    private static final int HEADER_SIZE = 4;
+    private static final int RECORD_OVERHEAD = 4 + 1 + 4;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    public interface Visitor {
+        void studentAdded(int id, String firstName, String lastName, String email);
+
+        void pointsAdded(int id, int[] points);
+
+        void notified(int id, int courseIndex);
+    }
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(ByteBuffer buffer);
+    }
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final Object commitLock = new Object();
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer committing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // Records are numbered from 1 in the order they were appended
+    private long recordCount;
+    private volatile long durableCount;
+    private volatile IOException commitFailure;
+
+    private Journal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Opens a journal for appending; validLength is the length returned by replay, or 0 for a new file
+    public static Journal open(Path file, long validLength) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (validLength < HEADER_SIZE) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        } else {
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+        return new Journal(channel);
+    }
+
+    // Replays every intact record and returns the length of the intact prefix of the file
+    public static long replay(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16))) {
+            if (channel.size() < HEADER_SIZE || in.readInt() != MAGIC) {
+                return 0;
+            }
+            long validLength = HEADER_SIZE;
+            CRC32 checksum = new CRC32();
+            while (true) {
+                byte[] body;
+                int storedCrc;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > channel.size() - validLength) {
+                        return validLength;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    storedCrc = in.readInt();
+                } catch (EOFException e) {
+                    return validLength;
+                }
+                checksum.reset();
+                checksum.update(body);
+                if ((int) checksum.getValue() != storedCrc) {
+                    return validLength;
+                }
+                dispatch(ByteBuffer.wrap(body), visitor);
+                validLength += 4 + body.length + 4;
+            }
+        }
+    }
+
+    // The log methods return the record's sequence number, to be passed to awaitDurable
+    public long logStudentAdded(int id, String firstName, String lastName, String email) {
+        int payloadLength = 4 + 3 * 4 + firstName.length() + lastName.length() + email.length();
+        return append(STUDENT_ADDED, payloadLength, buffer -> {
+            buffer.putInt(id);
+            putString(buffer, firstName);
+            putString(buffer, lastName);
+            putString(buffer, email);
+        });
+    }
+
+    public long logPointsAdded(int id, int[] points) {
+        return append(POINTS_ADDED, 4 + 4 + 4 * points.length, buffer -> {
+            buffer.putInt(id);
+            buffer.putInt(points.length);
+            for (int value : points) {
+                buffer.putInt(value);
+            }
+        });
+    }
+
+    public long logNotified(int id, int courseIndex) {
+        return append(NOTIFIED, 4 + 4, buffer -> {
+            buffer.putInt(id);
+            buffer.putInt(courseIndex);
+        });
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    // Returns once the record with the given sequence number, and every record before it, is on disk
+    public void awaitDurable(long sequence) {
+        if (durableCount >= sequence) {
+            return;
+        }
+        try {
+            commit(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal commit failed", e);
+        }
+    }
+
+    // Returns once everything appended so far is on disk
+    public void sync() {
+        awaitDurable(getRecordCount());
+    }
+
+    // Writes and forces everything appended so far
+    public void commit() throws IOException {
+        commit(getRecordCount());
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    private void commit(long sequence) throws IOException {
+        synchronized (commitLock) {
+            // The commit that held the lock meanwhile may have taken this record along
+            if (durableCount >= sequence) {
+                return;
+            }
+            if (commitFailure != null) {
+                throw commitFailure;
+            }
+            long committedCount;
+            synchronized (this) {
+                ByteBuffer full = active;
+                active = committing;
+                committing = full;
+                committedCount = recordCount;
+            }
+            try {
+                committing.flip();
+                while (committing.hasRemaining()) {
+                    channel.write(committing);
+                }
+                committing.clear();
+                channel.force(false);
+            } catch (IOException e) {
+                // What was in the buffer may or may not have reached the file, so nothing more is accepted
+                commitFailure = e;
+                throw e;
+            }
+            durableCount = committedCount;
+        }
+    }
+
+    private long append(byte type, int payloadLength, PayloadWriter payloadWriter) {
+        int recordLength = RECORD_OVERHEAD + payloadLength;
+        if (recordLength > BUFFER_SIZE) {
+            throw new IllegalArgumentException("Journal record too large: " + recordLength + " bytes");
+        }
+        while (true) {
+            if (commitFailure != null) {
+                throw new UncheckedIOException("Journal commit failed", commitFailure);
+            }
+            synchronized (this) {
+                if (active.remaining() >= recordLength) {
+                    int start = active.position();
+                    active.putInt(1 + payloadLength);
+                    active.put(type);
+                    payloadWriter.write(active);
+                    ByteBuffer body = active.duplicate();
+                    body.position(start + 4).limit(active.position());
+                    crc.reset();
+                    crc.update(body);
+                    active.putInt((int) crc.getValue());
+                    return ++recordCount;
+                }
+            }
+            commitOrThrow();
+        }
+    }
+
+    private void commitOrThrow() {
+        try {
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void dispatch(ByteBuffer record, Visitor visitor) throws IOException {
+        byte type = record.get();
+        int id = record.getInt();
+        switch (type) {
+            case STUDENT_ADDED -> visitor.studentAdded(id, getString(record), getString(record), getString(record));
+            case POINTS_ADDED -> {
+                int[] points = new int[record.getInt()];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = record.getInt();
+                }
+                visitor.pointsAdded(id, points);
+            }
+            case NOTIFIED -> visitor.notified(id, record.getInt());
+            default -> throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    // Credentials are validated ASCII, so one byte per character
+    private static void putString(ByteBuffer buffer, String value) {
+        buffer.putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,19 @@
+package tracker;
+
+/**
+ * JMX view of one {@link LatencyHistogram}; latencies are in microseconds.
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+}
@@ -1,24 +1,129 @@
 package tracker;
 
-import java.util.Scanner;
+import javax.management.JMException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
-        System.out.println("Learning Progress Tracker");
-        CommandProcessor commandProcessor = new CommandProcessor();
-
-        Scanner scanner = new Scanner(System.in);
-        while (true) {
-            String input = scanner.nextLine().trim();
-
-            if ("exit".equalsIgnoreCase(input)) {
-                System.out.println("Bye!");
-                break;
-            } else if (input.isEmpty()) {
-                System.out.println("No input.");
-            } else {
-                commandProcessor.processCommand(input);
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 1_000_000;
+    private static final int DEFAULT_HOT_STUDENTS = 1 << 16;
+
+    public static void main(String[] args) throws IOException {
+        String courseCatalog = getOption(args, "--courses");
+        CourseRegistry courses = courseCatalog == null
+                ? CourseRegistry.defaultCatalog() : CourseRegistry.load(Path.of(courseCatalog));
+
+        String partitionAddresses = getOption(args, "--coordinator");
+        if (partitionAddresses != null) {
+            try (PartitionCoordinator coordinator = PartitionCoordinator.connect(List.of(partitionAddresses.split(",")), courses)) {
+                ConsoleIO console = new ConsoleIO(System.in, new FileOutputStream(FileDescriptor.out));
+                new CoordinatorProcessor(console, coordinator).run();
+            } catch (IOException e) {
+                System.err.println("Cannot connect to the partitions: " + e.getMessage());
+            }
+            return;
+        }
+
+        String partition = getOption(args, "--partition");
+        int partitionIndex = partition == null ? 0 : Integer.parseInt(partition);
+        if (partitionIndex < 0 || partitionIndex >= PartitionCoordinator.MAX_PARTITIONS) {
+            throw new IllegalArgumentException("--partition must be between 0 and " + (PartitionCoordinator.MAX_PARTITIONS - 1));
+        }
+        String coldStore = getOption(args, "--cold-store");
+        String hotStudents = getOption(args, "--hot-students");
+        CredentialStore credentials = coldStore == null ? CredentialStore.inMemory() : CredentialStore.tiered(Path.of(coldStore),
+                hotStudents == null ? DEFAULT_HOT_STUDENTS : Integer.parseInt(hotStudents));
+        StudentManager studentManager = new StudentManager(courses, PartitionCoordinator.firstStudentId(partitionIndex), credentials);
+        String dataDirectory = getOption(args, "--data");
+        PersistenceManager persistence = null;
+        if (dataDirectory != null) {
+            String snapshotInterval = getOption(args, "--snapshot-every");
+            persistence = PersistenceManager.open(Path.of(dataDirectory), studentManager,
+                    snapshotInterval == null ? DEFAULT_SNAPSHOT_INTERVAL : Long.parseLong(snapshotInterval));
+        }
+
+        String outbox = getOption(args, "--outbox");
+        NotificationDispatcher dispatcher = null;
+        if (outbox != null) {
+            dispatcher = new NotificationDispatcher(new OutboxNotificationSink(Path.of(outbox)));
+            studentManager.setNotificationDispatcher(dispatcher);
+        }
+        try {
+            studentManager.getMetrics().registerMBeans();
+        } catch (JMException e) {
+            System.err.println("Could not publish metrics over JMX: " + e.getMessage());
+        }
+
+        // Workers and servers listen on loopback unless told which interface to bind
+        String bind = getOption(args, "--bind");
+        InetAddress bindAddress = bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+
+        String workerPort = getOption(args, "--worker");
+        if (workerPort != null) {
+            PersistenceManager workerPersistence = persistence;
+            PartitionWorker worker = new PartitionWorker(bindAddress, Integer.parseInt(workerPort), partitionIndex, studentManager);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                worker.close();
+                closeQuietly(workerPersistence);
+            }));
+            worker.run();
+            return;
+        }
+
+        String serverPort = getOption(args, "--server");
+        if (serverPort != null) {
+            PersistenceManager serverPersistence = persistence;
+            NotificationDispatcher serverDispatcher = dispatcher;
+            TrackerServer server = new TrackerServer(bindAddress, Integer.parseInt(serverPort), studentManager);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                closeQuietly(serverDispatcher);
+                closeQuietly(serverPersistence);
+            }));
+            server.run();
+            return;
+        }
+
+        String batchScript = getOption(args, "--batch");
+        if (batchScript != null) {
+            try {
+                new BatchPipeline(studentManager).run(Path.of(batchScript), new FileOutputStream(FileDescriptor.out));
+            } catch (IOException e) {
+                System.err.println("Cannot read file " + batchScript + ".");
             }
+        } else {
+            ConsoleIO console = new ConsoleIO(System.in, new FileOutputStream(FileDescriptor.out));
+            new CommandProcessor(console, studentManager).run();
+        }
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        if (persistence != null) {
+            persistence.close();
+        }
+    }
+
+    private static String getOption(String[] args, String name) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (name.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            System.err.println("Could not shut down cleanly: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,205 @@
+package tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Case-insensitive prefix index over first and last names.
+ * <p>
+ * Each name is one int key ({@code row * 2} for the first name, {@code row * 2 + 1}
+ * for the last name) kept in arrays sorted by the name it points to, so the names
+ * themselves stay in the store and a prefix lookup is a pair of binary searches per
+ * array. Names are compared in place through {@link CredentialStore}, without decoding
+ * them. New keys go to an unsorted tail, which keeps registration cheap during bulk
+ * imports; the next lookup sorts it into a new run. Runs are kept in decreasing size,
+ * each at least twice as large as the next, by merging the smallest ones whenever that
+ * no longer holds. A registration between two lookups therefore costs a merge of a few
+ * small runs rather than a rewrite of the whole index, every key is merged O(log n)
+ * times in all, and a lookup searches at most log2(n) runs.
+ * <p>
+ * Keys are added in ascending order and older runs win ties, so within every run equal
+ * names are ordered by key. A lookup walks the matching range of every run in that
+ * (name, key) order, resuming after a cursor, and stops once it has a page: it never
+ * collects more matches than it returns.
+ */
+public class NameIndex {
+    private final StudentStore store;
+    private final CredentialStore credentials;
+    private final List<int[]> runs = new ArrayList<>();
+    private int[] pending = new int[16];
+    private int pendingCount;
+
+    public NameIndex(StudentStore store) {
+        this.store = store;
+        this.credentials = store.getCredentialStore();
+    }
+
+    public synchronized void add(int id) {
+        int row = id - store.getFirstId();
+        if (pendingCount + 2 > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = row * 2;
+        pending[pendingCount++] = row * 2 + 1;
+    }
+
+    /**
+     * Returns the ids of up to {@code limit} students whose first or last name starts with
+     * the prefix, ordered by the matching name and then by id, starting after the student
+     * {@code afterId}, or from the first match if it is negative. A student whose names
+     * both match is listed once, for the first name.
+     */
+    public synchronized int[] findByPrefix(String prefix, int afterId, int limit) {
+        mergePending();
+        int afterKey = afterId < 0 ? -1 : matchingKey(afterId - store.getFirstId(), prefix);
+        int[] positions = new int[runs.size()];
+        int[] ends = new int[runs.size()];
+        for (int r = 0; r < runs.size(); r++) {
+            int[] run = runs.get(r);
+            int from = lowerBound(run, prefix);
+            ends[r] = upperBound(run, prefix, from);
+            positions[r] = afterKey < 0 ? from : firstAfter(run, afterKey, from, ends[r]);
+        }
+
+        int[] ids = new int[limit];
+        int found = 0;
+        while (found < limit) {
+            int next = -1;
+            for (int r = 0; r < runs.size(); r++) {
+                if (positions[r] < ends[r] && (next < 0
+                        || compareEntries(runs.get(r)[positions[r]], runs.get(next)[positions[next]]) < 0)) {
+                    next = r;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            int key = runs.get(next)[positions[next]++];
+            if (key % 2 == 0 || compareName(key - 1, prefix, true) != 0) {
+                ids[found++] = store.getFirstId() + key / 2;
+            }
+        }
+        return Arrays.copyOf(ids, found);
+    }
+
+    // The key a student is listed under: its first name if that matches the prefix, else its last name
+    private int matchingKey(int row, String prefix) {
+        return compareName(row * 2, prefix, true) == 0 ? row * 2 : row * 2 + 1;
+    }
+
+    private void mergePending() {
+        if (pendingCount == 0) {
+            return;
+        }
+        int[] added = Arrays.copyOf(pending, pendingCount);
+        sort(added, 0, added.length, new int[added.length]);
+        pendingCount = 0;
+
+        runs.add(added);
+        int last = runs.size() - 1;
+        while (last > 0 && runs.get(last - 1).length < 2 * runs.get(last).length) {
+            int[] merged = merge(runs.get(last - 1), runs.remove(last));
+            runs.set(--last, merged);
+        }
+    }
+
+    // Merges two sorted runs; on equal names the keys of the older run come first
+    private int[] merge(int[] older, int[] newer) {
+        int[] merged = new int[older.length + newer.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            if (j == newer.length || (i < older.length && compareKeys(older[i], newer[j]) <= 0)) {
+                merged[k] = older[i++];
+            } else {
+                merged[k] = newer[j++];
+            }
+        }
+        return merged;
+    }
+
+    // First position whose name is not below the prefix
+    private int lowerBound(int[] run, String prefix) {
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareName(run[middle], prefix, false) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First position from 'from' whose name no longer starts with the prefix
+    private int upperBound(int[] run, String prefix, int from) {
+        int low = from;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareName(run[middle], prefix, true) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First position in [from, to) ordered after the key
+    private int firstAfter(int[] run, int key, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareEntries(run[middle], key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Stable merge sort by name; there is no primitive sort that takes a comparator
+    private void sort(int[] keys, int from, int to, int[] buffer) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(keys, from, middle, buffer);
+        sort(keys, middle, to, buffer);
+        if (compareKeys(keys[middle - 1], keys[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(keys, from, buffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j == to || (i < middle && compareKeys(buffer[i], buffer[j]) <= 0)) {
+                keys[k] = buffer[i++];
+            } else {
+                keys[k] = buffer[j++];
+            }
+        }
+    }
+
+    private int compareKeys(int left, int right) {
+        return credentials.compareFieldsIgnoreCase(left / 2, left % 2, right / 2, right % 2);
+    }
+
+    // The order of every run: by name, then by key
+    private int compareEntries(int left, int right) {
+        int byName = compareKeys(left, right);
+        return byName != 0 ? byName : Integer.compare(left, right);
+    }
+
+    // Names are ASCII, so comparing lower-cased bytes is a case-insensitive order;
+    // with prefixOnly set, a name that starts with the prefix compares as equal
+    private int compareName(int key, String prefix, boolean prefixOnly) {
+        return credentials.compareFieldIgnoreCase(key / 2, key % 2, prefix, prefixOnly);
+    }
+}
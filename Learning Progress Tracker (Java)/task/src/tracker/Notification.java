@@ -0,0 +1,12 @@
+package tracker;
+
+/**
+ * A course completion email waiting to be delivered.
+ */
+public record Notification(String email, String fullName, String courseName) {
+
+    public String format() {
+        return "To: " + email + "\nRe: Your Learning Progress\nHello, " + fullName
+                + "! You have accomplished our " + courseName + " course!\n";
+    }
+}
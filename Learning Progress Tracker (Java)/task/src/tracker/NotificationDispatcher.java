@@ -0,0 +1,173 @@
+package tracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Delivers notifications to a {@link NotificationSink} on a background thread.
+ * <p>
+ * Notifications wait in a bounded queue. When the sink falls behind and the
+ * queue is full, {@link #submit} blocks, which pushes back on the notify
+ * command instead of buffering without limit. The worker hands the sink up
+ * to {@value #BATCH_SIZE} notifications at a time. A batch that fails is
+ * retried, waiting twice as long after every failure up to
+ * {@value #MAX_BACKOFF_MILLIS} ms, for as long as the dispatcher is open; an
+ * outage therefore fills the queue and slows notify down rather than losing
+ * anything. Once closed, a batch gets {@value #ATTEMPTS_WHEN_CLOSED} more
+ * attempts and is then counted as failed.
+ * <p>
+ * A notification may carry an action that runs on the worker once the sink
+ * has accepted it, so the caller can record the delivery only when it really
+ * happened. Submitters share the read side of a lock whose write side
+ * {@link #close} takes to flip the state, so a submit either lands in the
+ * queue before the worker's final drain or is rejected.
+ */
+public class NotificationDispatcher implements NotificationDispatcherMXBean, AutoCloseable {
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 512;
+    private static final long INITIAL_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    private static final int ATTEMPTS_WHEN_CLOSED = 3;
+
+    private final NotificationSink sink;
+    private final BlockingQueue<Queued> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    private record Queued(Notification notification, Runnable onDelivered) {
+    }
+
+    public NotificationDispatcher(NotificationSink sink) {
+        this.sink = sink;
+        this.worker = new Thread(this::deliverBatches, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void submit(Notification notification) {
+        submit(notification, () -> {
+        });
+    }
+
+    // onDelivered runs on the dispatcher's thread after the sink has accepted the notification, and never if it fails
+    public void submit(Notification notification, Runnable onDelivered) {
+        stateLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Notification dispatcher is closed");
+            }
+            // A full queue blocks here, holding off close until the worker makes room
+            queue.put(new Queued(notification, onDelivered));
+            submitted.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a notification", e);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    @Override
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    // Stops accepting notifications, delivers everything already queued and closes the sink
+    @Override
+    public void close() throws IOException {
+        stateLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    private void deliverBatches() {
+        List<Queued> batch = new ArrayList<>(BATCH_SIZE);
+        List<Notification> notifications = new ArrayList<>(BATCH_SIZE);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Queued queued : batch) {
+                    notifications.add(queued.notification());
+                }
+                if (deliverWithRetries(notifications)) {
+                    for (Queued queued : batch) {
+                        queued.onDelivered().run();
+                    }
+                }
+            } catch (InterruptedException e) {
+                failed.addAndGet(batch.size());
+                return;
+            } finally {
+                batch.clear();
+                notifications.clear();
+            }
+        }
+    }
+
+    // Returns whether the batch was delivered
+    private boolean deliverWithRetries(List<Notification> batch) throws InterruptedException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        int attemptsLeft = ATTEMPTS_WHEN_CLOSED;
+        while (true) {
+            try {
+                sink.deliver(batch);
+                delivered.addAndGet(batch.size());
+                return true;
+            } catch (IOException e) {
+                if (closed && --attemptsLeft == 0) {
+                    failed.addAndGet(batch.size());
+                    return false;
+                }
+                retries.incrementAndGet();
+                TimeUnit.MILLISECONDS.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
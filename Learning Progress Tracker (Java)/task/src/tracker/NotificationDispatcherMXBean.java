@@ -0,0 +1,20 @@
+package tracker;
+
+/**
+ * JMX view of a {@link NotificationDispatcher}: how many notifications were
+ * queued, delivered or given up on, and how often the sink had to be retried.
+ */
+public interface NotificationDispatcherMXBean {
+
+    long getSubmittedCount();
+
+    long getDeliveredCount();
+
+    // Notifications given up on after the dispatcher was closed with the sink still failing
+    long getFailedCount();
+
+    // Failed attempts to deliver a batch, each followed by a retry
+    long getRetryCount();
+
+    int getQueuedCount();
+}
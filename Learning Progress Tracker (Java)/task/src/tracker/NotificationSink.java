@@ -0,0 +1,16 @@
+package tracker;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Final destination of completion notifications, fed in batches by a {@link NotificationDispatcher}.
+ */
+public interface NotificationSink extends AutoCloseable {
+
+    void deliver(List<Notification> batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
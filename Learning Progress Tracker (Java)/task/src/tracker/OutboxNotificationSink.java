@@ -0,0 +1,34 @@
+package tracker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every notification to an outbox file, in the same format the console uses.
+ */
+public class OutboxNotificationSink implements NotificationSink {
+    private final BufferedWriter writer;
+
+    public OutboxNotificationSink(Path outbox) throws IOException {
+        this.writer = Files.newBufferedWriter(outbox, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) throws IOException {
+        for (Notification notification : batch) {
+            writer.write(notification.format());
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,40 @@
+package tracker;
+
+/**
+ * Result of applying one line of student credentials or points.
+ */
+public enum Outcome {
+    STUDENT_ADDED("The student has been added."),
+    INCORRECT_CREDENTIALS("Incorrect credentials."),
+    INCORRECT_FIRST_NAME("Incorrect first name."),
+    INCORRECT_LAST_NAME("Incorrect last name."),
+    INCORRECT_EMAIL("Incorrect email."),
+    EMAIL_TAKEN("This email is already taken."),
+    POINTS_UPDATED("Points updated."),
+    INCORRECT_POINTS_FORMAT("Incorrect points format."),
+    STUDENT_NOT_FOUND("No student is found for id=%s.", "No student is found.");
+
+    private final String message;
+    private final String summaryLabel;
+
+    Outcome(String message) {
+        this(message, message);
+    }
+
+    Outcome(String message, String summaryLabel) {
+        this.message = message;
+        this.summaryLabel = summaryLabel;
+    }
+
+    public String getMessage(String id) {
+        return this == STUDENT_NOT_FOUND ? String.format(message, id) : message;
+    }
+
+    public String getSummaryLabel() {
+        return summaryLabel;
+    }
+
+    public boolean isSuccess() {
+        return this == STUDENT_ADDED || this == POINTS_UPDATED;
+    }
+}
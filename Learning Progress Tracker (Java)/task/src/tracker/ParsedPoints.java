@@ -0,0 +1,20 @@
+package tracker;
+
+/**
+ * A points line that passed validation, or the reason it did not.
+ * {@code idText} is the id as it should appear in "No student is found" messages.
+ */
+public record ParsedPoints(int id, String idText, int[] points, Outcome error) {
+
+    static ParsedPoints valid(int id, int[] points) {
+        return new ParsedPoints(id, String.valueOf(id), points, null);
+    }
+
+    static ParsedPoints invalid(String idText, Outcome error) {
+        return new ParsedPoints(0, idText, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,19 @@
+package tracker;
+
+/**
+ * Student credentials that passed validation, or the reason they did not.
+ */
+public record ParsedStudent(String firstName, String lastName, String email, Outcome error) {
+
+    static ParsedStudent valid(String firstName, String lastName, String email) {
+        return new ParsedStudent(firstName, lastName, email, null);
+    }
+
+    static ParsedStudent invalid(Outcome error) {
+        return new ParsedStudent(null, null, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
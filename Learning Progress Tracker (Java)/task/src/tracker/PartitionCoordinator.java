@@ -0,0 +1,320 @@
+package tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Client side of a tracker that is split across {@link PartitionWorker} processes.
+ * <p>
+ * Partition {@code i} owns the ids from {@link #firstStudentId}{@code (i)} on, so
+ * points and id lookups go straight to the partition that owns the id. A student is
+ * registered on the partition picked by a hash of the lower-cased email, which makes
+ * that partition the one place the email can already be taken: the uniqueness check
+ * stays a local, atomic one. Statistics, distributions and course details are gathered
+ * from every partition; course counters and distributions are summed, and leaderboards
+ * are merged page by page in rank order, so no partition ever sends its whole roster at once.
+ * <p>
+ * A coordinator holds one connection per partition and is used by one session at a time.
+ */
+public class PartitionCoordinator implements AutoCloseable {
+    static final int ID_RANGE = 1 << 26;
+    // Keeps the last partition's ids within an int
+    public static final int MAX_PARTITIONS = 31;
+    private static final int MERGE_PAGE_SIZE = 1024;
+
+    private final CourseRegistry courses;
+    private final Partition[] partitions;
+
+    private static final class Partition implements AutoCloseable {
+        final int index;
+        final Socket socket;
+        final ConsoleIO connection;
+
+        Partition(int index, String address) throws IOException {
+            int colon = address.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IOException("Partition address " + address + " is not host:port");
+            }
+            this.index = index;
+            this.socket = new Socket();
+            socket.connect(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+            socket.setTcpNoDelay(true);
+            this.connection = new ConsoleIO(socket.getInputStream(), socket.getOutputStream());
+        }
+
+        void send(String request) {
+            connection.out().println(request);
+            connection.flush();
+        }
+
+        String[] receive() {
+            String count = connection.readLine();
+            if (count == null) {
+                throw new UncheckedIOException(new IOException("Partition " + index + " closed the connection"));
+            }
+            String[] lines = new String[Integer.parseInt(count)];
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = connection.readLine();
+            }
+            if (lines.length == 1 && lines[0].startsWith("ERROR ")) {
+                throw new IllegalStateException("Partition " + index + ": " + lines[0].substring("ERROR ".length()));
+            }
+            return lines;
+        }
+
+        String[] call(String request) {
+            send(request);
+            return receive();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private PartitionCoordinator(CourseRegistry courses, Partition[] partitions) {
+        this.courses = courses;
+        this.partitions = partitions;
+    }
+
+    // Connects to the partitions in order; the i-th address must be the worker started as partition i
+    public static PartitionCoordinator connect(List<String> addresses, CourseRegistry courses) throws IOException {
+        if (addresses.isEmpty() || addresses.size() > MAX_PARTITIONS) {
+            throw new IOException("Between 1 and " + MAX_PARTITIONS + " partitions are supported, got " + addresses.size());
+        }
+        Partition[] partitions = new Partition[addresses.size()];
+        try {
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = new Partition(i, addresses.get(i));
+                String[] hello = partitions[i].call("HELLO")[0].split(" ");
+                if (Integer.parseInt(hello[0]) != i || Integer.parseInt(hello[1]) != courses.size()) {
+                    throw new IOException(addresses.get(i) + " serves partition " + hello[0] + " with " + hello[1]
+                            + " courses, expected partition " + i + " with " + courses.size());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(partitions);
+            throw e;
+        }
+        return new PartitionCoordinator(courses, partitions);
+    }
+
+    public static int firstStudentId(int partition) {
+        return StudentManager.FIRST_STUDENT_ID + partition * ID_RANGE;
+    }
+
+    public CourseRegistry getCourses() {
+        return courses;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    // Returns the partition that owns the id, or -1 if no partition does
+    int partitionOfId(int id) {
+        if (id < StudentManager.FIRST_STUDENT_ID || id >= firstStudentId(partitions.length)) {
+            return -1;
+        }
+        return (id - StudentManager.FIRST_STUDENT_ID) / ID_RANGE;
+    }
+
+    int partitionOfEmail(String email) {
+        return Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), partitions.length);
+    }
+
+    public Outcome addStudent(String credentials) {
+        ParsedStudent student = InputParser.parseStudent(credentials);
+        if (!student.isValid()) {
+            return student.error();
+        }
+        return Outcome.valueOf(partitions[partitionOfEmail(student.email())].call("ADD " + credentials)[0]);
+    }
+
+    public Outcome addPoints(ParsedPoints parsedPoints) {
+        if (!parsedPoints.isValid()) {
+            return parsedPoints.error();
+        }
+        int partition = partitionOfId(parsedPoints.id());
+        if (partition < 0) {
+            return Outcome.STUDENT_NOT_FOUND;
+        }
+        StringBuilder request = new StringBuilder("POINTS ").append(parsedPoints.id());
+        for (int points : parsedPoints.points()) {
+            request.append(' ').append(points);
+        }
+        return Outcome.valueOf(partitions[partition].call(request.toString())[0]);
+    }
+
+    /**
+     * Returns what {@code find} prints for an id or an email, or null for searches
+     * that would have to visit every partition. Malformed queries and ids that no
+     * partition owns go to the first partition, which prints the usual message.
+     */
+    public String[] find(String query) {
+        String[] parts = query.split("\\s+");
+        int partition;
+        switch (parts[0].toLowerCase()) {
+            case "email":
+                partition = parts.length == 2 ? partitionOfEmail(parts[1]) : 0;
+                break;
+            case "name":
+            case "points":
+                return null;
+            default:
+                partition = InputParser.isDigits(query) ? Math.max(0, partitionOfId(InputParser.parseId(query))) : 0;
+        }
+        return partitions[partition].call("FIND " + query);
+    }
+
+    // The number of students on each partition, whose ids are then firstStudentId(i) onwards
+    public int[] getStudentCounts() {
+        String[][] replies = callAll("COUNT");
+        int[] counts = new int[partitions.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Integer.parseInt(replies[i][0]);
+        }
+        return counts;
+    }
+
+    public CourseStatistics.Snapshot getCourseStatistics() {
+        long[] enrolled = new long[courses.size()];
+        long[] submissions = new long[courses.size()];
+        long[] totalPoints = new long[courses.size()];
+        for (String[] reply : callAll("STATS")) {
+            String[] values = reply[0].split(" ");
+            for (int course = 0; course < enrolled.length; course++) {
+                enrolled[course] += Long.parseLong(values[3 * course]);
+                submissions[course] += Long.parseLong(values[3 * course + 1]);
+                totalPoints[course] += Long.parseLong(values[3 * course + 2]);
+            }
+        }
+        return new CourseStatistics.Snapshot(enrolled, submissions, totalPoints);
+    }
+
+    public PointsDistribution.Snapshot getDistribution(int courseIndex) {
+        PointsDistribution.Snapshot merged = null;
+        for (String[] reply : callAll("DIST " + courseIndex)) {
+            PointsDistribution.Snapshot partition = PointsDistribution.Snapshot.decode(reply[0]);
+            merged = merged == null ? partition : merged.merge(partition);
+        }
+        return merged;
+    }
+
+    /**
+     * Visits every learner of the course in rank order. Each partition's leaderboard is
+     * read a page at a time and the pages are merged, so a learner whose points change
+     * during the walk may be seen at the old or the new rank, like with the paged course
+     * listing. Returns the number of learners visited.
+     */
+    public int forEachLearner(int courseIndex, CourseLeaderboard.EntryVisitor visitor) {
+        String firstPage = "TOP " + courseIndex + " " + MERGE_PAGE_SIZE + " " + Integer.MIN_VALUE + " " + Integer.MAX_VALUE;
+        String[][] pages = callAll(firstPage);
+        PriorityQueue<LeaderboardCursor> heads = new PriorityQueue<>();
+        for (int i = 0; i < partitions.length; i++) {
+            LeaderboardCursor cursor = new LeaderboardCursor(partitions[i], courseIndex, pages[i]);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        int visited = 0;
+        while (!heads.isEmpty()) {
+            LeaderboardCursor cursor = heads.poll();
+            visitor.visit(cursor.id, cursor.points);
+            visited++;
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return visited;
+    }
+
+    // The current entry of one partition's leaderboard, fetching the next page when a full one runs out
+    private static final class LeaderboardCursor implements Comparable<LeaderboardCursor> {
+        final Partition partition;
+        final int courseIndex;
+        String[] page;
+        int next;
+        int id;
+        int points;
+
+        LeaderboardCursor(Partition partition, int courseIndex, String[] page) {
+            this.partition = partition;
+            this.courseIndex = courseIndex;
+            this.page = page;
+        }
+
+        boolean advance() {
+            if (next == page.length) {
+                if (page.length < MERGE_PAGE_SIZE) {
+                    return false;
+                }
+                page = partition.call("TOP " + courseIndex + " " + MERGE_PAGE_SIZE + " " + id + " " + points);
+                next = 0;
+                if (page.length == 0) {
+                    return false;
+                }
+            }
+            String entry = page[next++];
+            int space = entry.indexOf(' ');
+            id = Integer.parseInt(entry, 0, space, 10);
+            points = Integer.parseInt(entry, space + 1, entry.length(), 10);
+            return true;
+        }
+
+        // Same order as the leaderboards: points descending, then id ascending
+        @Override
+        public int compareTo(LeaderboardCursor other) {
+            if (points != other.points) {
+                return Integer.compare(other.points, points);
+            }
+            return Integer.compare(id, other.id);
+        }
+    }
+
+    // Sends the request to every partition before reading any reply, so the partitions work on it in parallel
+    private String[][] callAll(String request) {
+        for (Partition partition : partitions) {
+            partition.send(request);
+        }
+        String[][] replies = new String[partitions.length][];
+        RuntimeException failure = null;
+        for (int i = 0; i < partitions.length; i++) {
+            try {
+                replies[i] = partitions[i].receive();
+            } catch (IllegalStateException e) {
+                // Still read the other replies, or they would be taken for the answers to the next request
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return replies;
+    }
+
+    @Override
+    public void close() {
+        closeAll(partitions);
+    }
+
+    private static void closeAll(Partition[] partitions) {
+        for (Partition partition : partitions) {
+            if (partition == null) {
+                continue;
+            }
+            try {
+                partition.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+}
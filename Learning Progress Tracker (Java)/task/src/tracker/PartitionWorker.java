@@ -0,0 +1,181 @@
+package tracker;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves one partition of a tracker that is split across processes. The
+ * partition is an ordinary {@link StudentManager} whose ids start at the
+ * partition's range, see {@link PartitionCoordinator#firstStudentId}.
+ * <p>
+ * Coordinators connect over TCP and send one request per line; every reply
+ * is a count line followed by that many lines, and a request that failed gets
+ * a single line starting with {@code ERROR}:
+ * <ul>
+ * <li>{@code HELLO} - the partition index and the number of courses</li>
+ * <li>{@code ADD <credentials>} - registers a student, replies with the {@link Outcome}; fails once
+ * the partition has used up its range of ids</li>
+ * <li>{@code POINTS <id and points>} - adds points, replies with the {@link Outcome}</li>
+ * <li>{@code FIND <query>} - what {@code find} prints for the query</li>
+ * <li>{@code COUNT} - the number of students</li>
+ * <li>{@code STATS} - enrolled, submissions and total points of every course</li>
+ * <li>{@code TOP <course> <limit> <afterId> <afterPoints>} - "id points" of the next learners
+ * of the course in rank order</li>
+ * <li>{@code DIST <course>} - the course's {@link PointsDistribution}, encoded</li>
+ * </ul>
+ */
+public class PartitionWorker implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final int partition;
+    private final StudentManager studentManager;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+
+    // Listens on the loopback interface only
+    public PartitionWorker(int port, int partition, StudentManager studentManager) {
+        this(InetAddress.getLoopbackAddress(), port, partition, studentManager);
+    }
+
+    public PartitionWorker(InetAddress bindAddress, int port, int partition, StudentManager studentManager) {
+        this.partition = partition;
+        this.studentManager = studentManager;
+        // The next partition's ids start where this range ends
+        studentManager.setMaxStudents(PartitionCoordinator.ID_RANGE);
+        try {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + bindAddress.getHostAddress() + ":" + port, e);
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Accepts coordinators until the worker is closed
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                return; // Closed while waiting for a connection
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        connections.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            ConsoleIO connection = new ConsoleIO(socket.getInputStream(), socket.getOutputStream());
+            String request;
+            while ((request = connection.readLine()) != null) {
+                try {
+                    handle(request, connection.out());
+                } catch (RuntimeException e) {
+                    reply(connection.out(), "ERROR " + e.getMessage());
+                }
+                connection.flush();
+            }
+        } catch (IOException | UncheckedIOException ignored) {
+            // The coordinator went away
+        }
+    }
+
+    private void handle(String request, PrintWriter out) {
+        int space = request.indexOf(' ');
+        String operation = space < 0 ? request : request.substring(0, space);
+        String argument = space < 0 ? "" : request.substring(space + 1);
+        switch (operation) {
+            case "HELLO":
+                reply(out, partition + " " + studentManager.getCourses().size());
+                break;
+            case "ADD":
+                reply(out, addStudent(argument).name());
+                break;
+            case "POINTS":
+                reply(out, studentManager.applyPoints(
+                        InputParser.parsePoints(argument, studentManager.getCourses().size())).name());
+                break;
+            case "FIND":
+                StringWriter found = new StringWriter();
+                PrintWriter foundOut = new PrintWriter(found);
+                studentManager.findStudents(argument, foundOut);
+                foundOut.flush();
+                reply(out, found.toString().split(System.lineSeparator()));
+                break;
+            case "COUNT":
+                reply(out, Integer.toString(studentManager.getStudentCount()));
+                break;
+            case "STATS":
+                reply(out, describeStatistics());
+                break;
+            case "TOP":
+                replyTop(argument.split(" "), out);
+                break;
+            case "DIST":
+                reply(out, studentManager.getDistribution(Integer.parseInt(argument)).encode());
+                break;
+            default:
+                throw new IllegalArgumentException("unknown request " + operation);
+        }
+    }
+
+    private Outcome addStudent(String credentials) {
+        return studentManager.registerStudent(InputParser.parseStudent(credentials));
+    }
+
+    private String describeStatistics() {
+        CourseStatistics.Snapshot statistics = studentManager.getCourseStatistics().snapshot();
+        StringBuilder line = new StringBuilder();
+        for (int course = 0; course < statistics.getCourseCount(); course++) {
+            if (course > 0) {
+                line.append(' ');
+            }
+            line.append(statistics.getEnrolledStudents(course)).append(' ')
+                    .append(statistics.getSubmissions(course)).append(' ')
+                    .append(statistics.getTotalPoints(course));
+        }
+        return line.toString();
+    }
+
+    private void replyTop(String[] arguments, PrintWriter out) {
+        int courseIndex = Integer.parseInt(arguments[0]);
+        int limit = Integer.parseInt(arguments[1]);
+        int afterId = Integer.parseInt(arguments[2]);
+        int afterPoints = Integer.parseInt(arguments[3]);
+        StringBuilder lines = new StringBuilder();
+        int count = studentManager.forEachLearnerAfter(courseIndex, afterId, afterPoints, limit,
+                (id, points) -> lines.append(id).append(' ').append(points).append('\n'));
+        out.println(count);
+        out.print(lines);
+    }
+
+    private static void reply(PrintWriter out, String... lines) {
+        out.println(lines.length);
+        for (String line : lines) {
+            out.println(line);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package tracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link StudentManager} durable with snapshots and a {@link Journal}.
+ * <p>
+ * The data directory holds {@code snapshot-N.bin} and {@code journal-N.log}
+ * files. Snapshot N is the complete state at the moment journal N was
+ * started, so recovery loads the newest snapshot and replays only the
+ * journals from the same generation on. A background check takes a new
+ * snapshot once the current journal holds {@code snapshotInterval} records,
+ * and another is taken on a clean shutdown. After that, older generations
+ * are deleted.
+ * <p>
+ * A snapshot holds the manager's exclusive lock only to start the next
+ * journal and copy the numeric columns; it is written out after the lock is
+ * released, reading credentials, which never change, a chunk at a time. If
+ * the write fails, nothing is deleted: the older snapshot and the journals of
+ * both generations still recover every change.
+ */
+public class PersistenceManager implements AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x4C505453; // "LPTS"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final int CREDENTIAL_CHUNK_ROWS = 4096;
+    private static final long SNAPSHOT_CHECK_INTERVAL_SECONDS = 1;
+
+    private final Path directory;
+    private final StudentManager studentManager;
+    private final long snapshotInterval;
+    private final ScheduledExecutorService snapshotScheduler;
+    private long generation;
+    private Journal journal;
+    private volatile IOException snapshotFailure;
+
+    private PersistenceManager(Path directory, StudentManager studentManager, long snapshotInterval) {
+        this.directory = directory;
+        this.studentManager = studentManager;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Restores the manager from the directory and starts journaling every further change
+    public static PersistenceManager open(Path directory, StudentManager studentManager, long snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        PersistenceManager persistence = new PersistenceManager(directory, studentManager, snapshotInterval);
+        persistence.recover();
+        persistence.snapshotScheduler.scheduleWithFixedDelay(persistence::snapshotQuietlyIfDue,
+                SNAPSHOT_CHECK_INTERVAL_SECONDS, SNAPSHOT_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return persistence;
+    }
+
+    public synchronized void snapshotIfDue() throws IOException {
+        if (journal.getRecordCount() >= snapshotInterval) {
+            snapshot();
+        }
+    }
+
+    public synchronized void snapshot() throws IOException {
+        Journal previous = journal;
+        long nextGeneration = generation + 1;
+        int size;
+        CourseStatistics.Snapshot statistics;
+        StudentStore.Progress progress;
+        studentManager.exclusiveLock().lock();
+        try {
+            // Opened before anything is switched, so if it fails the current journal stays in place
+            Journal next = Journal.open(file(JOURNAL_PREFIX, nextGeneration, JOURNAL_SUFFIX), 0);
+            journal = next;
+            studentManager.setJournal(next);
+            generation = nextGeneration;
+            size = studentManager.getStore().size();
+            statistics = studentManager.getCourseStatistics().snapshot();
+            progress = studentManager.getStore().copyProgress();
+        } finally {
+            studentManager.exclusiveLock().unlock();
+        }
+
+        // Nothing appends to the previous journal any more; closing it forces its last records
+        IOException closeFailure = null;
+        try {
+            previous.close();
+        } catch (IOException e) {
+            closeFailure = e;
+        }
+        try {
+            writeSnapshot(file(SNAPSHOT_PREFIX, nextGeneration, SNAPSHOT_SUFFIX), size, statistics, progress);
+        } catch (IOException e) {
+            if (closeFailure != null) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        // Once the snapshot is on disk it covers whatever the previous journal failed to force
+        deleteGenerationsBefore(generation);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        snapshotScheduler.shutdown();
+        if (journal.getRecordCount() > 0) {
+            snapshot();
+        }
+        studentManager.setJournal(null);
+        journal.close();
+        if (snapshotFailure != null) {
+            throw snapshotFailure;
+        }
+    }
+
+    private void snapshotQuietlyIfDue() {
+        try {
+            snapshotIfDue();
+        } catch (IOException e) {
+            snapshotFailure = e;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> snapshots = generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        long snapshotGeneration = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        generation = snapshotGeneration;
+        if (!snapshots.isEmpty()) {
+            readSnapshot(file(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX));
+        }
+
+        long validLength = 0;
+        for (long journalGeneration : generations(JOURNAL_PREFIX, JOURNAL_SUFFIX)) {
+            if (journalGeneration >= generation) {
+                generation = journalGeneration;
+                validLength = Journal.replay(file(JOURNAL_PREFIX, journalGeneration, JOURNAL_SUFFIX), new Journal.Visitor() {
+                    @Override
+                    public void studentAdded(int id, String firstName, String lastName, String email) {
+                        studentManager.restoreStudent(id, firstName, lastName, email);
+                    }
+
+                    @Override
+                    public void pointsAdded(int id, int[] points) {
+                        studentManager.applyPoints(ParsedPoints.valid(id, points));
+                    }
+
+                    @Override
+                    public void notified(int id, int courseIndex) {
+                        studentManager.markNotified(id, courseIndex);
+                    }
+                });
+            }
+        }
+
+        // Journal records carry no timestamps, so the activity windows start with this run
+        studentManager.getCourseStatistics().getHistory().clear();
+        journal = Journal.open(file(JOURNAL_PREFIX, generation, JOURNAL_SUFFIX), validLength);
+        studentManager.setJournal(journal);
+        // A failed snapshot leaves journals newer than the last snapshot, which still need the older journals
+        deleteGenerationsBefore(snapshotGeneration);
+    }
+
+    private void writeSnapshot(Path target, int size, CourseStatistics.Snapshot statistics,
+                               StudentStore.Progress progress) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_SIZE));
+            int firstId = studentManager.getFirstStudentId();
+            CourseRegistry courses = studentManager.getCourses();
+
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(courses.size());
+            for (int course = 0; course < courses.size(); course++) {
+                writeString(out, courses.getName(course));
+            }
+            out.writeInt(firstId);
+            out.writeInt(size);
+            for (int course = 0; course < courses.size(); course++) {
+                out.writeLong(statistics.getEnrolledStudents(course));
+                out.writeLong(statistics.getSubmissions(course));
+                out.writeLong(statistics.getTotalPoints(course));
+            }
+
+            CredentialStore.Credentials[] credentials = new CredentialStore.Credentials[CREDENTIAL_CHUNK_ROWS];
+            for (int chunkStart = 0; chunkStart < size; chunkStart += CREDENTIAL_CHUNK_ROWS) {
+                int chunkEnd = Math.min(size, chunkStart + CREDENTIAL_CHUNK_ROWS);
+                studentManager.copyCredentials(chunkStart, chunkEnd, credentials);
+                for (int row = chunkStart; row < chunkEnd; row++) {
+                    CredentialStore.Credentials student = credentials[row - chunkStart];
+                    writeString(out, student.firstName());
+                    writeString(out, student.lastName());
+                    writeString(out, student.email());
+                    for (int course = 0; course < courses.size(); course++) {
+                        out.writeInt(progress.getPoints(row, course));
+                    }
+                    out.writeLong(progress.getNotifiedCourses(row));
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readSnapshot(Path source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source), IO_BUFFER_SIZE))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot format: " + source);
+            }
+            CourseRegistry courses = studentManager.getCourses();
+            int courseCount = in.readInt();
+            if (courseCount != courses.size()) {
+                throw new IOException("Snapshot has " + courseCount + " courses, expected " + courses.size());
+            }
+            for (int course = 0; course < courseCount; course++) {
+                String name = readString(in);
+                if (!name.equals(courses.getName(course))) {
+                    throw new IOException("Snapshot course " + course + " is " + name + ", expected " + courses.getName(course));
+                }
+            }
+            int firstId = in.readInt();
+            int size = in.readInt();
+            CourseStatistics statistics = studentManager.getCourseStatistics();
+            for (int course = 0; course < courseCount; course++) {
+                statistics.restore(course, in.readLong(), in.readLong(), in.readLong());
+            }
+
+            int[] points = new int[courseCount];
+            for (int id = firstId; id < firstId + size; id++) {
+                studentManager.restoreStudent(id, readString(in), readString(in), readString(in));
+                for (int course = 0; course < courseCount; course++) {
+                    points[course] = in.readInt();
+                }
+                studentManager.restoreProgress(id, points, in.readLong());
+            }
+        }
+        verifyStatistics(source);
+    }
+
+    // The snapshot stores the course statistics next to the points they were derived from; a mismatch means corruption
+    private void verifyStatistics(Path source) throws IOException {
+        StatisticsEngine.CourseAggregates aggregates = studentManager.aggregateCourses(new StatisticsEngine());
+        CourseStatistics statistics = studentManager.getCourseStatistics();
+        for (int course = 0; course < statistics.getCourseCount(); course++) {
+            if (aggregates.getEnrolledStudents(course) != statistics.getEnrolledStudents(course)
+                    || aggregates.getTotalPoints(course) != statistics.getTotalPoints(course)) {
+                throw new IOException("Snapshot statistics for " + studentManager.getCourses().getName(course)
+                        + " do not match its students: " + source);
+            }
+        }
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> name.substring(prefix.length(), name.length() - suffix.length()))
+                    .filter(InputParser::isDigits)
+                    .map(Long::parseLong)
+                    .sorted()
+                    .forEach(generations::add);
+        }
+        return generations;
+    }
+
+    private void deleteGenerationsBefore(long keep) throws IOException {
+        for (long old : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (old < keep) {
+                Files.deleteIfExists(file(SNAPSHOT_PREFIX, old, SNAPSHOT_SUFFIX));
+            }
+        }
+        for (long old : generations(JOURNAL_PREFIX, JOURNAL_SUFFIX)) {
+            if (old < keep) {
+                Files.deleteIfExists(file(JOURNAL_PREFIX, old, JOURNAL_SUFFIX));
+            }
+        }
+    }
+
+    private Path file(String prefix, long generation, String suffix) {
+        return directory.resolve(prefix + generation + suffix);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeInt(value.length());
+        out.writeBytes(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,189 @@
+package tracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of the enrolled students' points in one course, kept up to date on
+ * every points update so percentiles and the completion histogram never need a scan.
+ * <p>
+ * Points are counted in log-linear buckets like {@link LatencyHistogram}'s: values
+ * below 128 get a bucket each, and above that every power of two is split into 64
+ * equal buckets. A reported percentile is the upper bound of the bucket holding it,
+ * capped by the highest total, so it is never below the exact nearest-rank value and
+ * less than 1/64 (about 1.6%) above it; below 128 points it is exact. The completion
+ * histogram is exact. Memory is fixed at about 14 KiB per course, whatever the roster.
+ * <p>
+ * An update moves a student from the bucket of their old total to that of the new one
+ * with atomic increments, so updates for different students run concurrently; a
+ * reader racing with them may see a student in both buckets for a moment. Snapshots of
+ * several distributions of one course can be merged by adding them.
+ */
+public class PointsDistribution {
+    public static final int COMPLETION_BUCKETS = 11;
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_EXPONENT = 30;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS;
+
+    private final int completionThreshold;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray completion = new AtomicLongArray(COMPLETION_BUCKETS);
+    private final AtomicLong totalPoints = new AtomicLong();
+    private final AtomicLong maxPoints = new AtomicLong();
+
+    public PointsDistribution(int completionThreshold) {
+        this.completionThreshold = completionThreshold;
+    }
+
+    // Moves a student from oldPoints to newPoints; a total of 0 means not enrolled
+    public void update(int oldPoints, int newPoints) {
+        if (newPoints > 0) {
+            counts.incrementAndGet(bucketOf(newPoints));
+            completion.incrementAndGet(completionBucketOf(newPoints));
+            maxPoints.accumulateAndGet(newPoints, Math::max);
+        }
+        if (oldPoints > 0) {
+            counts.decrementAndGet(bucketOf(oldPoints));
+            completion.decrementAndGet(completionBucketOf(oldPoints));
+        }
+        totalPoints.addAndGet(newPoints - oldPoints);
+    }
+
+    public Snapshot snapshot() {
+        long[] pointCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            pointCounts[i] = counts.get(i);
+        }
+        long[] completionCounts = new long[COMPLETION_BUCKETS];
+        for (int i = 0; i < COMPLETION_BUCKETS; i++) {
+            completionCounts[i] = completion.get(i);
+        }
+        return new Snapshot(pointCounts, completionCounts, totalPoints.get(), maxPoints.get());
+    }
+
+    // Bucket i holds totals from i * 10% up to (i + 1) * 10% of the threshold; the last one holds completions
+    private int completionBucketOf(int points) {
+        return (int) Math.min(COMPLETION_BUCKETS - 1, (long) points * 10 / completionThreshold);
+    }
+
+    static int bucketOf(int value) {
+        if (value < SUB_BUCKETS) {
+            return value;
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS + 1;
+        int subBucket = value >>> shift;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket - HALF_SUB_BUCKETS;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - SUB_BUCKETS;
+        int shift = offset / HALF_SUB_BUCKETS + 1;
+        long subBucket = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * The counts of a distribution at one moment.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long[] completion;
+        private final long totalPoints;
+        private final long maxPoints;
+
+        Snapshot(long[] counts, long[] completion, long totalPoints, long maxPoints) {
+            this.counts = counts;
+            this.completion = completion;
+            this.totalPoints = totalPoints;
+            this.maxPoints = maxPoints;
+        }
+
+        public Snapshot merge(Snapshot other) {
+            long[] mergedCounts = counts.clone();
+            for (int i = 0; i < mergedCounts.length; i++) {
+                mergedCounts[i] += other.counts[i];
+            }
+            long[] mergedCompletion = completion.clone();
+            for (int i = 0; i < mergedCompletion.length; i++) {
+                mergedCompletion[i] += other.completion[i];
+            }
+            return new Snapshot(mergedCounts, mergedCompletion, totalPoints + other.totalPoints,
+                    Math.max(maxPoints, other.maxPoints));
+        }
+
+        public long getEnrolled() {
+            long enrolled = 0;
+            for (long count : completion) {
+                enrolled += count;
+            }
+            return enrolled;
+        }
+
+        public double getMean() {
+            long enrolled = getEnrolled();
+            return enrolled == 0 ? 0 : (double) totalPoints / enrolled;
+        }
+
+        public long getMax() {
+            return maxPoints;
+        }
+
+        public long getCompletionCount(int bucket) {
+            return completion[bucket];
+        }
+
+        // Nearest-rank percentile of the enrolled students' points, within the bounds described above; 0 if nobody is enrolled
+        public long getPercentile(double percentile) {
+            long enrolled = 0;
+            for (long count : counts) {
+                enrolled += count;
+            }
+            if (enrolled == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * enrolled));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), maxPoints);
+                }
+            }
+            return maxPoints;
+        }
+
+        // Sparse "bucket:count" pairs, for sending a snapshot to another process
+        public String encode() {
+            StringBuilder encoded = new StringBuilder().append(totalPoints).append(' ').append(maxPoints);
+            for (long count : completion) {
+                encoded.append(' ').append(count);
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    encoded.append(' ').append(i).append(':').append(counts[i]);
+                }
+            }
+            return encoded.toString();
+        }
+
+        public static Snapshot decode(String encoded) {
+            String[] fields = encoded.split(" ");
+            long[] completion = new long[COMPLETION_BUCKETS];
+            for (int i = 0; i < COMPLETION_BUCKETS; i++) {
+                completion[i] = Long.parseLong(fields[2 + i]);
+            }
+            long[] counts = new long[BUCKETS];
+            for (int i = 2 + COMPLETION_BUCKETS; i < fields.length; i++) {
+                int colon = fields[i].indexOf(':');
+                counts[Integer.parseInt(fields[i], 0, colon, 10)] = Long.parseLong(fields[i].substring(colon + 1));
+            }
+            return new Snapshot(counts, completion, Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package tracker;
+
+import java.io.PrintWriter;
+
+/**
+ * Runs one session of commands against some tracker.
+ * <p>
+ * Input is handled one line at a time by a small state machine: {@code add students},
+ * {@code add points}, {@code find} and {@code statistics} switch to a {@link Mode} that
+ * collects entries until {@code back}. Which mode a line is read in depends only on the
+ * lines before it, never on what they did, which is what lets {@link BatchPipeline}
+ * work out the modes of a whole script ahead of applying it.
+ * <p>
+ * The modes, prompts and replies shared by every kind of session live here; subclasses
+ * apply the entries and the other commands, see {@link CommandProcessor} for a tracker in
+ * this process and {@link CoordinatorProcessor} for one split across partitions.
+ */
+public abstract class SessionProcessor {
+    protected final ConsoleIO console;
+    protected final PrintWriter out;
+    private Mode mode = Mode.COMMAND;
+
+    public enum Mode {
+        COMMAND,
+        ADD_STUDENTS,
+        ADD_POINTS,
+        FIND,
+        COURSE_DETAILS,
+        CLOSED;
+
+        // The mode for the line after the given trimmed line
+        public Mode next(String line) {
+            switch (this) {
+                case COMMAND:
+                    if ("exit".equalsIgnoreCase(line)) {
+                        return CLOSED;
+                    }
+                    switch (line.toLowerCase()) {
+                        case "add students":
+                            return ADD_STUDENTS;
+                        case "add points":
+                            return ADD_POINTS;
+                        case "find":
+                            return FIND;
+                        case "statistics":
+                            return COURSE_DETAILS;
+                        default:
+                            return COMMAND;
+                    }
+                case CLOSED:
+                    return CLOSED;
+                default:
+                    return "back".equalsIgnoreCase(line) ? COMMAND : this;
+            }
+        }
+    }
+
+    protected SessionProcessor(ConsoleIO console) {
+        this.console = console;
+        this.out = console.out();
+    }
+
+    // Runs one session until 'exit' or the end of the input
+    public void run() {
+        start();
+        String input;
+        while (!isClosed() && (input = console.readLine()) != null) {
+            handleLine(input);
+        }
+        console.flush();
+    }
+
+    public void start() {
+        out.println("Learning Progress Tracker");
+    }
+
+    public boolean isClosed() {
+        return mode == Mode.CLOSED;
+    }
+
+    public void handleLine(String line) {
+        handleLine(line.trim(), null, null);
+    }
+
+    /**
+     * Handles one trimmed line in the current mode. Credentials or points that were
+     * already parsed off the session's thread may be passed in, and are then used
+     * instead of parsing the line again.
+     */
+    void handleLine(String input, ParsedStudent student, ParsedPoints points) {
+        Mode current = mode;
+        mode = current.next(input);
+        switch (current) {
+            case COMMAND:
+                if ("exit".equalsIgnoreCase(input)) {
+                    out.println("Bye!");
+                } else if (input.isEmpty()) {
+                    out.println("No input.");
+                } else {
+                    processCommand(input);
+                }
+                break;
+            case ADD_STUDENTS:
+                if ("back".equalsIgnoreCase(input)) {
+                    out.println("Total " + getStudentCount() + " students have been added.");
+                } else if ("exit".equalsIgnoreCase(input)) {
+                    out.println("Incorrect credentials.");
+                } else {
+                    addStudent(student != null ? student : InputParser.parseStudent(input), input);
+                }
+                break;
+            case ADD_POINTS:
+                if (!"back".equalsIgnoreCase(input)) {
+                    addPoints(points != null ? points : InputParser.parsePoints(input, getCourses().size()));
+                }
+                break;
+            case FIND:
+                if (!"back".equalsIgnoreCase(input)) {
+                    find(input);
+                }
+                break;
+            case COURSE_DETAILS:
+                if (!"back".equalsIgnoreCase(input)) {
+                    if (!displayCourseDetails(input)) {
+                        out.println("Unknown course.");
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void processCommand(String command) {
+        switch (command.toLowerCase()) {
+            case "add students":
+                out.println("Enter student credentials or 'back' to return:");
+                break;
+            case "add points":
+                out.println("Enter an id and points or 'back' to return:");
+                break;
+            case "find":
+                out.println("Enter an id or 'back' to return:");
+                break;
+            case "back":
+                out.println("Enter 'exit' to exit the program.");
+                break;
+            default:
+                if (!processOtherCommand(command)) {
+                    out.println("Error: unknown command!");
+                }
+        }
+    }
+
+    protected abstract CourseRegistry getCourses();
+
+    protected abstract long getStudentCount();
+
+    // The credentials are passed both parsed and as typed
+    protected abstract void addStudent(ParsedStudent student, String credentials);
+
+    protected abstract void addPoints(ParsedPoints points);
+
+    protected abstract void find(String query);
+
+    // Returns false for an unknown course
+    protected abstract boolean displayCourseDetails(String courseName);
+
+    // Handles any command other than the ones that switch modes; returns false for an unknown command
+    protected abstract boolean processOtherCommand(String command);
+}
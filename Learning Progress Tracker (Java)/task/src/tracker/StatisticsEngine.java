@@ -0,0 +1,141 @@
+package tracker;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Recomputes per-course aggregates from the points columns of a {@link StudentStore}.
+ * <p>
+ * The store's shards are split recursively over a fork-join pool; every leaf scans one
+ * shard's primitive columns into partial counts, sums, minimums and maximums, and the
+ * partials are merged on the way back up. {@link CourseStatistics} is the incremental
+ * counterpart behind the six answers of {@code statistics}; this engine rebuilds the
+ * enrolled counts and totals from scratch, along with the minimum and maximum points the
+ * counters do not track, for {@code statistics recount} and to check a snapshot after
+ * recovery. The store must not be modified while it runs.
+ */
+public class StatisticsEngine {
+    private final ForkJoinPool pool;
+
+    public StatisticsEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public StatisticsEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Per-course aggregates over the enrolled students, i.e. those with points in the course.
+     * Minimum and maximum are 0 for a course without enrolled students.
+     */
+    public static final class CourseAggregates {
+        private final long[] enrolledStudents;
+        private final long[] totalPoints;
+        private final int[] minPoints;
+        private final int[] maxPoints;
+
+        CourseAggregates(int courseCount) {
+            enrolledStudents = new long[courseCount];
+            totalPoints = new long[courseCount];
+            minPoints = new int[courseCount];
+            maxPoints = new int[courseCount];
+        }
+
+        public long getEnrolledStudents(int courseIndex) {
+            return enrolledStudents[courseIndex];
+        }
+
+        public long getTotalPoints(int courseIndex) {
+            return totalPoints[courseIndex];
+        }
+
+        public int getMinPoints(int courseIndex) {
+            return minPoints[courseIndex];
+        }
+
+        public int getMaxPoints(int courseIndex) {
+            return maxPoints[courseIndex];
+        }
+
+        private void merge(CourseAggregates other) {
+            for (int course = 0; course < enrolledStudents.length; course++) {
+                if (other.enrolledStudents[course] == 0) {
+                    continue;
+                }
+                if (enrolledStudents[course] == 0) {
+                    minPoints[course] = other.minPoints[course];
+                    maxPoints[course] = other.maxPoints[course];
+                } else {
+                    minPoints[course] = Math.min(minPoints[course], other.minPoints[course]);
+                    maxPoints[course] = Math.max(maxPoints[course], other.maxPoints[course]);
+                }
+                enrolledStudents[course] += other.enrolledStudents[course];
+                totalPoints[course] += other.totalPoints[course];
+            }
+        }
+    }
+
+    public CourseAggregates aggregate(StudentStore store) {
+        int courseCount = store.getCourses().size();
+        if (store.getShardCount() == 0) {
+            return new CourseAggregates(courseCount);
+        }
+        return pool.invoke(new ShardTask(store, courseCount, 0, store.getShardCount()));
+    }
+
+    private static final class ShardTask extends RecursiveTask<CourseAggregates> {
+        private static final long serialVersionUID = 1L;
+
+        private final StudentStore store;
+        private final int courseCount;
+        private final int fromShard;
+        private final int toShard;
+
+        ShardTask(StudentStore store, int courseCount, int fromShard, int toShard) {
+            this.store = store;
+            this.courseCount = courseCount;
+            this.fromShard = fromShard;
+            this.toShard = toShard;
+        }
+
+        @Override
+        protected CourseAggregates compute() {
+            if (toShard - fromShard == 1) {
+                return scan(fromShard);
+            }
+            int middle = (fromShard + toShard) >>> 1;
+            ShardTask right = new ShardTask(store, courseCount, middle, toShard);
+            right.fork();
+            CourseAggregates result = new ShardTask(store, courseCount, fromShard, middle).compute();
+            result.merge(right.join());
+            return result;
+        }
+
+        private CourseAggregates scan(int shard) {
+            CourseAggregates result = new CourseAggregates(courseCount);
+            int rows = store.getShardRows(shard);
+            for (int course = 0; course < courseCount; course++) {
+                int[] column = store.getPointShard(shard, course);
+                long enrolled = 0;
+                long sum = 0;
+                int min = Integer.MAX_VALUE;
+                int max = 0;
+                for (int row = 0; row < rows; row++) {
+                    int points = column[row];
+                    if (points > 0) {
+                        enrolled++;
+                        sum += points;
+                        min = Math.min(min, points);
+                        max = Math.max(max, points);
+                    }
+                }
+                result.enrolledStudents[course] = enrolled;
+                result.totalPoints[course] = sum;
+                result.minPoints[course] = enrolled == 0 ? 0 : min;
+                result.maxPoints[course] = max;
+            }
+            return result;
+        }
+    }
+}
@@ -1,72 +1,75 @@
 package tracker;
 
-import java.util.HashSet;
-import java.util.Set;
-
+/**
+ * Lightweight view of one row of the {@link StudentStore}.
+ */
 public class Student {
+    private final StudentStore store;
     private final int id;
-    private final String firstName;
-    private final String lastName;
-    private final String email;
-    private final int[] points; // Points for Java, DSA, Databases, Spring
 
-    public Student(int id, String firstName, String lastName, String email) {
+    Student(StudentStore store, int id) {
+        this.store = store;
         this.id = id;
-        this.firstName = firstName;
-        this.lastName = lastName;
-        this.email = email;
-        this.points = new int[4]; // Initialize points array
     }
 
     public void addPoints(int[] newPoints) {
-        for (int i = 0; i < this.points.length; i++) {
-            this.points[i] += newPoints[i];
+        for (int i = 0; i < newPoints.length; i++) {
+            store.addPoints(id, i, newPoints[i]);
         }
     }
 
     public boolean isEnrolledInCourse(int courseIndex) {
-        return points[courseIndex] > 0;
+        return store.getPoints(id, courseIndex) > 0;
     }
 
     public int getTotalPointsForCourse(int courseIndex) {
-        return points[courseIndex];
+        return store.getPoints(id, courseIndex);
     }
 
     public int getId() {
         return id;
     }
 
+    // Returns a copy; points are only changed through addPoints
     public int[] getPoints() {
+        int[] points = new int[store.getCourses().size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = store.getPoints(id, i);
+        }
         return points;
     }
 
-    private final Set<String> notifiedCourses = new HashSet<>();
-
-    public boolean hasCompletedCourse(String courseName) {
-        int index = StatisticsCalculator.getCourseIndexByName(courseName);
-        int completionThreshold = StatisticsCalculator.getCompletionThresholdByCourseName(courseName);
-        return this.points[index] >= completionThreshold;
+    public boolean hasCompletedCourse(int courseIndex) {
+        return store.getPoints(id, courseIndex) >= store.getCourses().getCompletionThreshold(courseIndex);
     }
 
-    public boolean isNotifiedForCourse(String courseName) {
-        return notifiedCourses.contains(courseName);
+    public boolean isNotifiedForCourse(int courseIndex) {
+        return store.isNotified(id, courseIndex);
     }
 
-    public void markNotifiedForCourse(String courseName) {
-        notifiedCourses.add(courseName);
+    public void markNotifiedForCourse(int courseIndex) {
+        store.markNotified(id, courseIndex);
     }
 
     public String getFullName() {
-        return firstName + " " + lastName;
+        CredentialStore.Credentials credentials = store.getCredentials(id);
+        return credentials.firstName() + " " + credentials.lastName();
     }
 
     @Override
     public String toString() {
-        return String.format("%d points: Java=%d; DSA=%d; Databases=%d; Spring=%d",
-                id, points[0], points[1], points[2], points[3]);
+        CourseRegistry courses = store.getCourses();
+        StringBuilder description = new StringBuilder().append(id).append(" points: ");
+        for (int i = 0; i < courses.size(); i++) {
+            if (i > 0) {
+                description.append("; ");
+            }
+            description.append(courses.getName(i)).append('=').append(store.getPoints(id, i));
+        }
+        return description.toString();
     }
 
     public String getEmail() {
-        return email;
+        return store.getCredentials(id).email();
     }
 }
@@ -1,186 +1,835 @@
 package tracker;
 
+import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Owns all student data and is safe to share between sessions.
+ * <p>
+ * Registering a student may grow the store, so it takes the write side of
+ * {@code storeLock}; everything else takes the read side. Updates to one
+ * student are serialized by a striped lock on its id. Leaderboards install
+ * each update with a compare-and-set and the course statistics are striped
+ * by id as well, so point updates for different students proceed in
+ * parallel even within one course.
+ * Leaderboards and the stripes of the course statistics are immutable
+ * versions behind a reference, so reports read consistent snapshots
+ * without taking any lock.
+ * <p>
+ * Completions are detected as soon as a points update crosses a course's
+ * threshold and published to a lock-free queue, so {@code notify} only visits
+ * students that actually have something to be notified about. It takes what
+ * has been published so far, builds its notifications from that without
+ * touching any student lock, and marks each course notified only once its
+ * notification has been delivered: printed, or accepted by the dispatcher's
+ * sink. A notification the sink never accepts leaves its course unmarked, so
+ * it is detected again when the journal is replayed.
+ * <p>
+ * Emails are unique regardless of case, which {@link EmailIndex} checks
+ * without keeping a second copy of them.
+ * <p>
+ * Besides ids, {@code find} accepts an email, a name prefix (served by
+ * {@link NameIndex}) or a points range in one course (served by the
+ * course's leaderboard), and pages through multi-student results.
+ * <p>
+ * Each course also has a {@link PointsDistribution}, moved along with its
+ * leaderboard, for percentiles and the completion histogram.
+ */
 public class StudentManager {
-    private final Map<Integer, Student> studentData = new LinkedHashMap<>();
-    private final Map<String, Integer> emailToId = new HashMap<>();
-    private int studentStartId = 1000;
-
-    public void addStudent(String credentials) {
-        String[] parts = credentials.trim().split("\\s+");
-        if (parts.length < 3) {
-            System.out.println("Incorrect credentials.");
-            return;
+    static final int FIRST_STUDENT_ID = 1000;
+    private static final int LOCK_STRIPES = 64;
+    private static final int FIND_PAGE_SIZE = 20;
+
+    private final CourseRegistry courses;
+    private final int firstStudentId;
+    private final StudentStore store;
+    private final EmailIndex emailIndex;
+    private final NameIndex nameIndex;
+    private final CourseStatistics courseStatistics;
+    private final CourseLeaderboard[] leaderboards;
+    private final PointsDistribution[] distributions;
+    private final TrackerMetrics metrics;
+    private final StatisticsEngine statisticsEngine = new StatisticsEngine();
+    private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+    private final Object[] studentLocks = new Object[LOCK_STRIPES];
+    private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private volatile int maxStudents = Integer.MAX_VALUE;
+    private volatile Journal journal;
+    private volatile NotificationDispatcher notificationDispatcher;
+
+    // Courses one points update took the student past, not yet taken by a notify
+    private record Completion(int id, long courses) {
+    }
+
+    public StudentManager() {
+        this(CourseRegistry.defaultCatalog());
+    }
+
+    public StudentManager(CourseRegistry courses) {
+        this(courses, FIRST_STUDENT_ID);
+    }
+
+    // Ids are assigned from firstStudentId on, which lets several managers share one id space
+    public StudentManager(CourseRegistry courses, int firstStudentId) {
+        this(courses, firstStudentId, CredentialStore.inMemory());
+    }
+
+    public StudentManager(CourseRegistry courses, int firstStudentId, CredentialStore credentials) {
+        this.courses = courses;
+        this.firstStudentId = firstStudentId;
+        this.store = new StudentStore(firstStudentId, courses, credentials);
+        this.emailIndex = new EmailIndex(credentials, true);
+        this.nameIndex = new NameIndex(store);
+        this.courseStatistics = new CourseStatistics(courses.size());
+        this.metrics = new TrackerMetrics(this::getStudentCount, () -> courseStatistics.getHistory().getRecordedCount(),
+                credentials);
+        this.leaderboards = new CourseLeaderboard[courses.size()];
+        this.distributions = new PointsDistribution[courses.size()];
+        for (int i = 0; i < leaderboards.length; i++) {
+            leaderboards[i] = new CourseLeaderboard();
+            distributions[i] = new PointsDistribution(courses.getCompletionThreshold(i));
         }
+        for (int i = 0; i < studentLocks.length; i++) {
+            studentLocks[i] = new Object();
+        }
+    }
 
-        String firstName = parts[0];
-        String lastName = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length - 1));
-        String email = parts[parts.length - 1];
+    // Registrations beyond the limit fail; checked under the lock that assigns ids, so concurrent ones cannot overshoot it
+    void setMaxStudents(int maxStudents) {
+        this.maxStudents = maxStudents;
+    }
 
-        if (isNotValidName(firstName)) {
-            System.out.println("Incorrect first name.");
-        } else if (isNotValidName(lastName)) {
-            System.out.println("Incorrect last name.");
-        } else if (!isValidEmail(email)) {
-            System.out.println("Incorrect email.");
-        } else if (emailToId.containsKey(email)) {
-            System.out.println("This email is already taken.");
-        } else {
-            int id = studentStartId++;
-            Student newStudent = new Student(id, firstName, lastName, email);
-            studentData.put(id, newStudent);
-            emailToId.put(email, id);
-            System.out.println("The student has been added.");
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    // Sends notifications through the dispatcher instead of printing them to the session
+    public void setNotificationDispatcher(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+        metrics.setNotificationDispatcher(notificationDispatcher);
+    }
+
+    public CourseRegistry getCourses() {
+        return courses;
+    }
+
+    public int getFirstStudentId() {
+        return firstStudentId;
+    }
+
+    public TrackerMetrics getMetrics() {
+        return metrics;
+    }
+
+    StudentStore getStore() {
+        return store;
+    }
+
+    CourseStatistics getCourseStatistics() {
+        return courseStatistics;
+    }
+
+    // Held while a snapshot switches journals and copies the state, so that no change slips in between the two
+    Lock exclusiveLock() {
+        return storeLock.writeLock();
+    }
+
+    // Restores a student from a snapshot or the journal without validating or journaling it again
+    void restoreStudent(int id, String firstName, String lastName, String email) {
+        if (store.add(firstName, lastName, email) != id) {
+            throw new IllegalStateException("Restored student " + id + " is out of sequence");
+        }
+        emailIndex.add(email, id - firstStudentId);
+        nameIndex.add(id);
+    }
+
+    // Restores snapshot points without touching the course statistics, which the snapshot restores as a whole
+    void restoreProgress(int id, int[] points, long notifiedCourses) {
+        for (int i = 0; i < points.length; i++) {
+            if (points[i] > 0) {
+                store.addPoints(id, i, points[i]);
+                leaderboards[i].update(id, 0, points[i]);
+                distributions[i].update(0, points[i]);
+            }
+        }
+        store.setNotifiedCourses(id, notifiedCourses);
+        detectCompletions(id, new int[points.length], points);
+    }
+
+    public void addStudent(String credentials, PrintWriter out) {
+        addStudent(InputParser.parseStudent(credentials), out);
+    }
+
+    public void addStudent(ParsedStudent student, PrintWriter out) {
+        addStudent(student, out, true);
+    }
+
+    void addStudent(ParsedStudent student, PrintWriter out, boolean awaitDurable) {
+        Outcome outcome = registerStudent(student, awaitDurable);
+        metrics.recordOutcome(outcome);
+        out.println(outcome.getMessage(null));
+    }
+
+    // Returns once the new student is in the journal on disk, if there is a journal
+    public Outcome registerStudent(ParsedStudent student) {
+        return registerStudent(student, true);
+    }
+
+    // Without awaitDurable, the caller has to call awaitJournal before it reports the outcome to anyone
+    Outcome registerStudent(ParsedStudent student, boolean awaitDurable) {
+        if (!student.isValid()) {
+            return student.error();
+        }
+        Journal currentJournal;
+        long sequence = 0;
+        storeLock.writeLock().lock();
+        try {
+            if (emailIndex.find(student.email()) >= 0) {
+                return Outcome.EMAIL_TAKEN;
+            }
+            if (store.size() >= maxStudents) {
+                throw new IllegalStateException("No more than " + maxStudents + " students can be registered");
+            }
+            int id = store.add(student.firstName(), student.lastName(), student.email());
+            emailIndex.add(student.email(), id - firstStudentId);
+            nameIndex.add(id);
+            currentJournal = journal;
+            if (currentJournal != null) {
+                sequence = currentJournal.logStudentAdded(id, student.firstName(), student.lastName(), student.email());
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+        // Forced after the lock is released, so registrations queued behind this one share the next force
+        if (awaitDurable && currentJournal != null) {
+            currentJournal.awaitDurable(sequence);
+        }
+        return Outcome.STUDENT_ADDED;
+    }
+
+    // Returns once every change journaled so far is on disk
+    void awaitJournal() {
+        Journal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.sync();
         }
     }
 
-    public void listAllStudents() {
-        if (studentData.isEmpty()) {
-            System.out.println("No students found.");
+    public void listAllStudents(PrintWriter out) {
+        // Ids are dense and never reused, so only the count has to be read under the lock
+        int studentCount = getStudentCount();
+        if (studentCount == 0) {
+            out.println("No students found.");
         } else {
-            System.out.println("Students:");
-            studentData.keySet().forEach(System.out::println);
+            out.println("Students:");
+            int lastId = firstStudentId + studentCount;
+            for (int id = firstStudentId; id < lastId; id++) {
+                out.println(id);
+            }
+        }
+    }
+
+    // Prints at most 'limit' ids starting at the zero-based row 'offset', and how to continue
+    public void listStudents(int offset, int limit, PrintWriter out) {
+        int studentCount = getStudentCount();
+        if (offset >= studentCount) {
+            out.println("No students found.");
+            return;
+        }
+        int end = (int) Math.min(studentCount, (long) offset + limit);
+        out.println("Students:");
+        for (int row = offset; row < end; row++) {
+            out.println(firstStudentId + row);
+        }
+        if (end < studentCount) {
+            out.println("More students: list " + end + " " + limit);
         }
     }
 
     public int getStudentCount() {
-        return studentData.size();
+        storeLock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            storeLock.readLock().unlock();
+        }
     }
 
-    public void addPointsToStudent(String inputData) {
-        String[] parts = inputData.trim().split("\\s+");
-        if (parts.length != 5) {
-            System.out.println("Incorrect points format.");
+    public void addPointsToStudent(String inputData, PrintWriter out) {
+        addPointsToStudent(InputParser.parsePoints(inputData, courses.size()), out);
+    }
+
+    public void addPointsToStudent(ParsedPoints parsedPoints, PrintWriter out) {
+        addPointsToStudent(parsedPoints, out, true);
+    }
+
+    void addPointsToStudent(ParsedPoints parsedPoints, PrintWriter out, boolean awaitDurable) {
+        Outcome outcome = applyPoints(parsedPoints, awaitDurable);
+        metrics.recordOutcome(outcome);
+        out.println(outcome.getMessage(parsedPoints.idText()));
+    }
+
+    // Returns once the update is in the journal on disk, if there is a journal
+    public Outcome applyPoints(ParsedPoints parsedPoints) {
+        return applyPoints(parsedPoints, true);
+    }
+
+    // Without awaitDurable, the caller has to call awaitJournal before it reports the outcome to anyone
+    Outcome applyPoints(ParsedPoints parsedPoints, boolean awaitDurable) {
+        if (!parsedPoints.isValid()) {
+            return parsedPoints.error();
+        }
+        Journal currentJournal;
+        long sequence = 0;
+
+        int id = parsedPoints.id();
+        int[] points = parsedPoints.points();
+        storeLock.readLock().lock();
+        try {
+            Student student = store.get(id);
+            if (student == null) {
+                return Outcome.STUDENT_NOT_FOUND; // ID does not exist
+            }
+
+            synchronized (lockFor(id)) {
+                int[] currentPoints = student.getPoints();
+                for (int i = 0; i < points.length; i++) {
+                    if (points[i] > 0) {
+                        leaderboards[i].update(id, currentPoints[i], currentPoints[i] + points[i]);
+                        distributions[i].update(currentPoints[i], currentPoints[i] + points[i]);
+                    }
+                }
+                courseStatistics.recordPoints(id, currentPoints, points);
+                student.addPoints(points);
+                detectCompletions(id, currentPoints, points);
+            }
+            currentJournal = journal;
+            if (currentJournal != null) {
+                sequence = currentJournal.logPointsAdded(id, points);
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        if (awaitDurable && currentJournal != null) {
+            currentJournal.awaitDurable(sequence);
+        }
+        return Outcome.POINTS_UPDATED; // Points successfully updated
+    }
+
+    // Accepts an id, "email <address>", "name <prefix> [after <id>]" or "points <course> <min> <max> [page]"
+    public void findStudents(String input, PrintWriter out) {
+        String[] parts = InputParser.splitTokens(input);
+        switch (parts[0].toLowerCase()) {
+            case "email":
+                findStudentByEmail(parts, out);
+                break;
+            case "name":
+                findStudentsByName(parts, out);
+                break;
+            case "points":
+                findStudentsByPoints(parts, out);
+                break;
+            default:
+                findStudentById(input, out);
+        }
+    }
+
+    public void findStudentById(String input, PrintWriter out) {
+        if (!InputParser.isDigits(input)) {
+            out.println("Incorrect ID format.");
+            return;
+        }
+        int id = InputParser.parseId(input);
+        String details = id < 0 ? null : describeStudent(id);
+        if (details == null) {
+            out.println("No student is found for id=" + (id < 0 ? input : id) + ".");
             return;
         }
+        out.println(details);
+    }
 
-        int id;
+    private void findStudentByEmail(String[] parts, PrintWriter out) {
+        if (parts.length != 2) {
+            out.println("Incorrect search format.");
+            return;
+        }
+        int row;
+        storeLock.readLock().lock();
         try {
-            id = Integer.parseInt(parts[0]);
-        } catch (NumberFormatException e) {
-            System.out.println("No student is found for id=" + parts[0] + ".");
+            row = emailIndex.find(parts[1]);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        if (row < 0) {
+            out.println("No student is found for email=" + parts[1] + ".");
             return;
         }
+        out.println(describeStudent(firstStudentId + row));
+    }
 
-        int[] points = new int[4];
+    // Pages by cursor, so a lookup never collects more matches than it shows
+    private void findStudentsByName(String[] parts, PrintWriter out) {
+        boolean resumed = parts.length == 4 && "after".equalsIgnoreCase(parts[2]) && InputParser.isDigits(parts[3]);
+        if (parts.length != 2 && !resumed) {
+            out.println("Incorrect search format.");
+            return;
+        }
+        int afterId = resumed ? InputParser.parseId(parts[3]) : -1;
+        int[] ids;
+        storeLock.readLock().lock();
         try {
-            for (int i = 0; i < 4; i++) {
-                points[i] = Integer.parseInt(parts[i + 1]);
-                if (points[i] < 0) {
-                    System.out.println("Incorrect points format.");
-                    return;
-                }
+            if (resumed && (afterId < 0 || !store.contains(afterId))) {
+                out.println("No student is found for id=" + (afterId < 0 ? parts[3] : afterId) + ".");
+                return;
             }
-        } catch (NumberFormatException e) {
-            System.out.println("Incorrect points format.");
+            // One more than a page tells whether there is a next one
+            ids = nameIndex.findByPrefix(parts[1], afterId, FIND_PAGE_SIZE + 1);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        if (ids.length == 0) {
+            out.println(resumed ? "No more students found." : "No students found.");
             return;
         }
+        int shown = Math.min(ids.length, FIND_PAGE_SIZE);
+        for (int i = 0; i < shown; i++) {
+            out.println(describeStudent(ids[i]));
+        }
+        if (ids.length > FIND_PAGE_SIZE) {
+            out.println("More students: name " + parts[1] + " after " + ids[shown - 1]);
+        }
+    }
 
-        Student student = studentData.get(id);
-        if (student == null) {
-            System.out.println("No student is found for id=" + id + ".");
-            return; // ID does not exist
+    private void findStudentsByPoints(String[] parts, PrintWriter out) {
+        // Course names may contain spaces, so the numbers are taken from the end
+        int numbers = parts.length >= 5 && InputParser.isDigits(parts[parts.length - 3]) ? 3 : 2;
+        int first = parts.length - numbers;
+        if (first < 2) {
+            out.println("Incorrect search format.");
+            return;
+        }
+        int courseIndex = courses.indexOf(String.join(" ", Arrays.copyOfRange(parts, 1, first)));
+        if (courseIndex < 0) {
+            out.println("Unknown course.");
+            return;
+        }
+        int minPoints = InputParser.isDigits(parts[first]) ? InputParser.parseId(parts[first]) : -1;
+        int maxPoints = InputParser.isDigits(parts[first + 1]) ? InputParser.parseId(parts[first + 1]) : -1;
+        int page = numbers == 3 ? parsePage(parts[first + 2]) : 1;
+        if (minPoints < 0 || maxPoints < minPoints || page < 1) {
+            out.println("Incorrect search format.");
+            return;
         }
 
-        student.addPoints(points);
-        System.out.println("Points updated."); // Points successfully updated
+        int total;
+        int[] pageIds;
+        CourseLeaderboard.Snapshot leaderboard = leaderboards[courseIndex].snapshot();
+        // Students without points are not on the leaderboard, so a range starting at 0 covers the enrolled ones
+        int from = leaderboard.countAbove(maxPoints);
+        total = leaderboard.countAbove(minPoints - 1) - from;
+        int skip = (int) Math.min((long) (page - 1) * FIND_PAGE_SIZE, total);
+        pageIds = new int[Math.min(FIND_PAGE_SIZE, total - skip)];
+        int[] next = {0};
+        leaderboard.forEachInRankOrder(from + skip, pageIds.length, (id, points) -> pageIds[next[0]++] = id);
+        printPage(pageIds, total, page, out);
     }
 
-    public void findStudentById(String input) {
-        if (!input.matches("\\d+")) {
-            System.out.println("Incorrect ID format.");
+    private void printPage(int[] ids, int total, int page, PrintWriter out) {
+        if (total == 0) {
+            out.println("No students found.");
             return;
         }
-        int id = Integer.parseInt(input);
-        if (!studentData.containsKey(id)) {
-            System.out.println("No student is found for id=" + id + ".");
+        int pages = (total + FIND_PAGE_SIZE - 1) / FIND_PAGE_SIZE;
+        if (ids.length == 0) {
+            out.println("Page " + page + " is out of range, the last page is " + pages + ".");
             return;
         }
-        System.out.println(studentData.get(id));
+        out.println("Found " + total + " students, page " + page + " of " + pages + ":");
+        for (int id : ids) {
+            out.println(describeStudent(id));
+        }
     }
 
-    private boolean isNotValidName(String name) {
-        String[] nameParts = name.split("\\s+");
-        for (String part : nameParts) {
-            if (!isValidNamePart(part)) {
-                return true;
+    // Returns -1 unless the text is a positive page number
+    private static int parsePage(String text) {
+        int page = InputParser.isDigits(text) ? InputParser.parseId(text) : -1;
+        return page > 0 ? page : -1;
+    }
+
+    private String describeStudent(int id) {
+        storeLock.readLock().lock();
+        try {
+            Student student = store.get(id);
+            if (student == null) {
+                return null;
+            }
+            synchronized (lockFor(id)) {
+                return student.toString();
             }
+        } finally {
+            storeLock.readLock().unlock();
         }
-        return false;
     }
 
-    private boolean isValidNamePart(String namePart) {
-        return namePart.matches("[A-Za-z'-]{2,}") && !namePart.startsWith("-") && !namePart.startsWith("'") && !namePart.endsWith("-") && !namePart.endsWith("'") && !namePart.contains("''") && !namePart.contains("--") && !namePart.contains("'-") && !namePart.contains("-'");
+    public void calculateAndDisplayStatistics(PrintWriter out) {
+        printStatistics(new StatisticsCalculator(courses, courseStatistics), out);
     }
 
-    private boolean isValidEmail(String email) {
-        return email.matches("[\\w.-]+@[\\w-]+(\\.[\\w-]+)*\\.[\\w-]+");
+    // Recounts every course from the stored points with the fork-join engine, including the minimum and maximum
+    public void displayRecountedStatistics(PrintWriter out) {
+        StatisticsEngine.CourseAggregates aggregates = aggregateCourses(statisticsEngine);
+        out.println("course\tenrolled\ttotal\tmin\tmax");
+        for (int course = 0; course < courses.size(); course++) {
+            long enrolled = aggregates.getEnrolledStudents(course);
+            out.println(courses.getName(course) + "\t" + enrolled + "\t" + aggregates.getTotalPoints(course) + "\t"
+                    + (enrolled == 0 ? "n/a\tn/a" : aggregates.getMinPoints(course) + "\t" + aggregates.getMaxPoints(course)));
+        }
+    }
+
+    static void printStatistics(StatisticsCalculator statsCalculator, PrintWriter out) {
+        out.println("Type the name of a course to see details or 'back' to quit:");
+        out.println("Most popular: " + statsCalculator.calculateMostPopularCourse());
+        out.println("Least popular: " + statsCalculator.calculateLeastPopularCourse());
+        out.println("Highest activity: " + statsCalculator.calculateHighestActivityCourse());
+        out.println("Lowest activity: " + statsCalculator.calculateLowestActivityCourse());
+        out.println("Easiest course: " + statsCalculator.calculateEasiestCourse());
+        out.println("Hardest course: " + statsCalculator.calculateHardestCourse());
     }
 
-    public void calculateAndDisplayStatistics() {
-        StatisticsCalculator statsCalculator = new StatisticsCalculator(studentData);
 
-        System.out.println("Type the name of a course to see details or 'back' to quit:");
-        System.out.println("Most popular: " + statsCalculator.calculateMostPopularCourse());
-        System.out.println("Least popular: " + statsCalculator.calculateLeastPopularCourse());
-        System.out.println("Highest activity: " + statsCalculator.calculateHighestActivityCourse());
-        System.out.println("Lowest activity: " + statsCalculator.calculateLowestActivityCourse());
-        System.out.println("Easiest course: " + statsCalculator.calculateEasiestCourse());
-        System.out.println("Hardest course: " + statsCalculator.calculateHardestCourse());
+    public PointsDistribution.Snapshot getDistribution(int courseIndex) {
+        return distributions[courseIndex].snapshot();
     }
 
+    public boolean displayDistribution(String courseName, PrintWriter out) {
+        int courseIndex = courses.indexOf(courseName);
+        if (courseIndex < 0) {
+            return false;
+        }
+        printDistribution(courseName, getDistribution(courseIndex), out);
+        return true;
+    }
 
-    public boolean displayCourseDetails(String courseName) {
-        if (!Arrays.asList("Java", "DSA", "Databases", "Spring").contains(courseName)) {
-            return false; // Invalid course name
+    static void printDistribution(String courseName, PointsDistribution.Snapshot distribution, PrintWriter out) {
+        out.println(courseName);
+        out.printf("Enrolled: %d, mean points: %.1f%n", distribution.getEnrolled(), distribution.getMean());
+        out.println("Median: " + distribution.getPercentile(50) + ", p90: " + distribution.getPercentile(90)
+                + ", p99: " + distribution.getPercentile(99) + ", max: " + distribution.getMax());
+        out.println("completed\tstudents");
+        for (int bucket = 0; bucket < PointsDistribution.COMPLETION_BUCKETS - 1; bucket++) {
+            out.println(bucket * 10 + "-" + (bucket + 1) * 10 + "%\t" + distribution.getCompletionCount(bucket));
         }
+        out.println("100%+\t" + distribution.getCompletionCount(PointsDistribution.COMPLETION_BUCKETS - 1));
+    }
+
+    public void displayRecentSubmissions(long submissions, PrintWriter out) {
+        displayActivity("Activity in the last " + submissions + " submissions:",
+                courseStatistics.getHistory().countLastSubmissions(submissions), out);
+    }
 
-        StatisticsCalculator statsCalculator = new StatisticsCalculator(studentData);
-        Map<String, List<Student>> topLearnersPerCourse = statsCalculator.calculateTopLearnersPerCourse();
+    public void displayRecentMinutes(int minutes, PrintWriter out) {
+        displayActivity("Activity in the last " + minutes + " minutes:",
+                courseStatistics.getHistory().countLastMinutes(minutes), out);
+    }
+
+    private void displayActivity(String title, long[] submissions, PrintWriter out) {
+        out.println(title);
+        out.println("course\tsubmissions");
+        for (int course = 0; course < submissions.length; course++) {
+            out.println(courses.getName(course) + "\t" + submissions[course]);
+        }
+    }
 
-        System.out.println(courseName);
-        System.out.println("id\tpoints\tcompleted");
-        topLearnersPerCourse.get(courseName).forEach(student -> {
-            int totalPoints = student.getTotalPointsForCourse(StatisticsCalculator.getCourseIndexByName(courseName));
-            double completionPercentage = calculateCompletionPercentage(totalPoints, courseName);
-            System.out.printf("%d\t%d\t%.1f%%%n", student.getId(), totalPoints, completionPercentage);
+    public boolean displayCourseDetails(String courseName, PrintWriter out) {
+        int courseIndex = courses.indexOf(courseName);
+        if (courseIndex < 0) {
+            return false; // Invalid course name
+        }
+
+        out.println(courseName);
+        out.println("id\tpoints\tcompleted");
+        forEachLearnerAfter(courseIndex, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, (id, totalPoints) -> {
+            double completionPercentage = calculateCompletionPercentage(totalPoints, courseIndex);
+            out.printf("%d\t%d\t%.1f%%%n", id, totalPoints, completionPercentage);
         });
 
         return true;
     }
 
-    public void generateNotifications() {
-        Set<Integer> notifiedStudents = new HashSet<>();
-        for (Student student : studentData.values()) {
-            boolean studentNotified = false;
-            for (String course : Arrays.asList("Java", "DSA", "Databases", "Spring")) {
-                if (student.hasCompletedCourse(course) && !student.isNotifiedForCourse(course)) {
-                    if (!studentNotified) {
-                        studentNotified = true;
-                        notifiedStudents.add(student.getId());
+    /**
+     * Like the course details, but only {@code limit} learners ranked after the cursor
+     * (afterId, afterPoints), or from the top if afterId is negative. The cursor handed back
+     * under the page carries the points of its last learner, so the next page resumes
+     * exactly where this one ended even if that learner has gained points since. A negative
+     * afterPoints takes the student's current points instead.
+     */
+    public boolean displayCoursePage(String courseName, int limit, int afterId, int afterPoints, PrintWriter out) {
+        int courseIndex = courses.indexOf(courseName);
+        if (courseIndex < 0) {
+            return false;
+        }
+        int cursorPoints = Integer.MAX_VALUE;
+        if (afterId >= 0) {
+            cursorPoints = afterPoints >= 0 ? afterPoints : getPointsInCourse(afterId, courseIndex);
+            if (cursorPoints < 0) {
+                out.println("No student is found for id=" + afterId + ".");
+                return true;
+            }
+        }
+
+        out.println(courseName);
+        out.println("id\tpoints\tcompleted");
+        int[] last = {-1, 0};
+        CourseLeaderboard.EntryVisitor printer = (id, totalPoints) -> {
+            out.printf("%d\t%d\t%.1f%%%n", id, totalPoints, calculateCompletionPercentage(totalPoints, courseIndex));
+            last[0] = id;
+            last[1] = totalPoints;
+        };
+        int shown = afterId < 0 ? forEachTopLearner(courseIndex, limit, printer)
+                : forEachLearnerAfter(courseIndex, afterId, cursorPoints, limit, printer);
+        if (shown == limit && last[0] >= 0) {
+            out.println("More learners: course " + courseName + " top " + limit + " after " + last[0] + " " + last[1]);
+        }
+        return true;
+    }
+
+    /**
+     * Visits up to {@code limit} learners of the course in rank order, starting after the
+     * cursor (afterId, afterPoints); {@code (Integer.MIN_VALUE, Integer.MAX_VALUE)} starts at
+     * the top. The walk runs over a snapshot of the leaderboard, so it sees the course as it
+     * was when the call started however long the visitor takes, and updates carry on meanwhile.
+     * Returns the number of learners visited.
+     */
+    public int forEachLearnerAfter(int courseIndex, int afterId, int afterPoints, int limit,
+                                   CourseLeaderboard.EntryVisitor visitor) {
+        CourseLeaderboard.Snapshot leaderboard = getLeaderboard(courseIndex);
+        int from = leaderboard.countUpTo(afterId, afterPoints);
+        leaderboard.forEachInRankOrder(from, limit, visitor);
+        return Math.min(limit, leaderboard.size() - from);
+    }
+
+    // Visits the course's top 'limit' learners in rank order, from a snapshot; returns the number visited
+    public int forEachTopLearner(int courseIndex, int limit, CourseLeaderboard.EntryVisitor visitor) {
+        CourseLeaderboard.Snapshot leaderboard = getLeaderboard(courseIndex);
+        leaderboard.forEachTop(limit, visitor);
+        return Math.min(limit, leaderboard.size());
+    }
+
+    // Returns the one-based rank of the student in the course, 0 if the student is not enrolled in it, or -1 if there is no such student
+    public int getRankInCourse(int id, int courseIndex) {
+        storeLock.readLock().lock();
+        try {
+            if (!store.contains(id)) {
+                return -1;
+            }
+            // The student's lock keeps its points and its leaderboard entry in step
+            synchronized (lockFor(id)) {
+                return getLeaderboard(courseIndex).rankOf(id, store.getPoints(id, courseIndex)) + 1;
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    public boolean displayRank(int id, String courseName, PrintWriter out) {
+        int courseIndex = courses.indexOf(courseName);
+        if (courseIndex < 0) {
+            return false;
+        }
+        int rank = getRankInCourse(id, courseIndex);
+        if (rank < 0) {
+            out.println("No student is found for id=" + id + ".");
+        } else if (rank == 0) {
+            out.println("Student " + id + " is not enrolled in " + courseName + ".");
+        } else {
+            out.println("Student " + id + " is ranked " + rank + " of " + getLeaderboard(courseIndex).size()
+                    + " in " + courseName + ".");
+        }
+        return true;
+    }
+
+    // A point-in-time view of the course's leaderboard, for walks that are done in several steps
+    CourseLeaderboard.Snapshot getLeaderboard(int courseIndex) {
+        return leaderboards[courseIndex].snapshot();
+    }
+
+    // Returns the student's points in the course, or -1 if there is no such student
+    private int getPointsInCourse(int id, int courseIndex) {
+        storeLock.readLock().lock();
+        try {
+            if (!store.contains(id)) {
+                return -1;
+            }
+            synchronized (lockFor(id)) {
+                return store.getPoints(id, courseIndex);
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    // Copies rows [fromRow, toRow) for an export; credentials skip the cache, and each student's points are read under their lock
+    void copyRows(int fromRow, int toRow, CredentialStore.Credentials[] credentials, int[][] points) {
+        storeLock.readLock().lock();
+        try {
+            CredentialStore credentialStore = store.getCredentialStore();
+            for (int row = fromRow; row < toRow; row++) {
+                int id = firstStudentId + row;
+                credentials[row - fromRow] = credentialStore.peek(row);
+                synchronized (lockFor(id)) {
+                    for (int course = 0; course < points.length; course++) {
+                        points[course][row - fromRow] = store.getPoints(id, course);
                     }
-                    sendNotification(student, course);
-                    student.markNotifiedForCourse(course);
                 }
             }
+        } finally {
+            storeLock.readLock().unlock();
         }
-        System.out.println("Total " + notifiedStudents.size() + " students have been notified.");
     }
 
-    private void sendNotification(Student student, String courseName) {
-        System.out.printf("To: %s\nRe: Your Learning Progress\nHello, %s! You have accomplished our %s course!\n", student.getEmail(), student.getFullName(), courseName);
+    // Copies the credentials of rows [fromRow, toRow) without touching the cache; rows never change once added
+    void copyCredentials(int fromRow, int toRow, CredentialStore.Credentials[] credentials) {
+        storeLock.readLock().lock();
+        try {
+            CredentialStore credentialStore = store.getCredentialStore();
+            for (int row = fromRow; row < toRow; row++) {
+                credentials[row - fromRow] = credentialStore.peek(row);
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
     }
 
-    private double calculateCompletionPercentage(int totalPoints, String courseName) {
-        int maxPoints = switch (courseName) {
-            case "Java" -> 600;
-            case "DSA" -> 400;
-            case "Databases" -> 480;
-            case "Spring" -> 550;
-            default -> 0;
-        };
-        return (double) totalPoints / maxPoints * 100;
+    // Copies the credentials of ids[from, to) for an export, without touching the cache
+    void copyCredentials(int[] ids, int from, int to, CredentialStore.Credentials[] credentials) {
+        storeLock.readLock().lock();
+        try {
+            CredentialStore credentialStore = store.getCredentialStore();
+            for (int i = from; i < to; i++) {
+                credentials[i - from] = credentialStore.peek(ids[i] - firstStudentId);
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    // Recomputes the per-course aggregates from the stored points, with all updates held off meanwhile
+    public StatisticsEngine.CourseAggregates aggregateCourses(StatisticsEngine engine) {
+        storeLock.writeLock().lock();
+        try {
+            return engine.aggregate(store);
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    public void generateNotifications(PrintWriter out) {
+        // Everything published so far, merged per student and in id order. Concurrent runs take disjoint completions.
+        SortedMap<Integer, Long> completed = new TreeMap<>();
+        for (Completion completion = completions.poll(); completion != null; completion = completions.poll()) {
+            completed.merge(completion.id(), completion.courses(), (first, second) -> first | second);
+        }
+
+        // Built without any student lock and handed on after releasing the store, as a full dispatcher queue blocks
+        List<Notification> notifications = new ArrayList<>();
+        List<Runnable> markDelivered = new ArrayList<>();
+        int notifiedStudents = 0;
+        storeLock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, Long> entry : completed.entrySet()) {
+                int id = entry.getKey();
+                // Only a replayed journal can have marked a published completion already, before the manager was shared
+                long completedCourses = entry.getValue() & ~store.getNotifiedCourses(id);
+                if (completedCourses == 0) {
+                    continue;
+                }
+
+                notifiedStudents++;
+                CredentialStore.Credentials credentials = store.getCredentials(id);
+                String email = credentials.email();
+                String fullName = credentials.firstName() + " " + credentials.lastName();
+                for (int course = 0; course < courses.size(); course++) {
+                    if ((completedCourses & (1L << course)) != 0) {
+                        long courseMask = 1L << course;
+                        notifications.add(new Notification(email, fullName, courses.getName(course)));
+                        markDelivered.add(() -> markNotified(id, courseMask));
+                    }
+                }
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+
+        NotificationDispatcher dispatcher = notificationDispatcher;
+        for (int i = 0; i < notifications.size(); i++) {
+            if (dispatcher == null) {
+                out.print(notifications.get(i).format());
+                markDelivered.get(i).run();
+            } else {
+                dispatcher.submit(notifications.get(i), markDelivered.get(i));
+            }
+        }
+        // A crash before the marks are forced only means the notifications go out again
+        awaitJournal();
+        out.println("Total " + notifiedStudents + " students have been notified.");
+        if (dispatcher != null) {
+            out.println(notifications.size() + " notifications queued, " + dispatcher.getDeliveredCount()
+                    + " delivered so far.");
+        }
+    }
+
+    // Called with the student's lock held, after the new points have been added
+    private void detectCompletions(int id, int[] previousPoints, int[] addedPoints) {
+        long completedCourses = 0;
+        for (int course = 0; course < addedPoints.length; course++) {
+            int threshold = courses.getCompletionThreshold(course);
+            if (previousPoints[course] < threshold && previousPoints[course] + addedPoints[course] >= threshold) {
+                completedCourses |= 1L << course;
+            }
+        }
+        completedCourses &= ~store.getNotifiedCourses(id);
+        if (completedCourses != 0) {
+            completions.add(new Completion(id, completedCourses));
+        }
+    }
+
+    // Marks the courses of the mask notified, taking the locks a points update would
+    private void markNotified(int id, long courseMask) {
+        if (courseMask == 0) {
+            return;
+        }
+        storeLock.readLock().lock();
+        try {
+            synchronized (lockFor(id)) {
+                for (int course = 0; course < courses.size(); course++) {
+                    if ((courseMask & (1L << course)) != 0) {
+                        markNotified(id, course);
+                    }
+                }
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    void markNotified(int id, int courseIndex) {
+        store.markNotified(id, courseIndex);
+        Journal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logNotified(id, courseIndex);
+        }
+    }
+
+    private Object lockFor(int id) {
+        return studentLocks[id & (LOCK_STRIPES - 1)];
+    }
+
+    double calculateCompletionPercentage(int totalPoints, int courseIndex) {
+        return (double) totalPoints / courses.getCompletionThreshold(courseIndex) * 100;
     }
 
 }
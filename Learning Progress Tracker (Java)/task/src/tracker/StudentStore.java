@@ -0,0 +1,190 @@
+package tracker;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented storage for all registered students.
+ * <p>
+ * Ids are handed out densely starting at {@code firstId}, so a student's id
+ * minus {@code firstId} is its row in every column. Points are kept in one
+ * primitive column per course, notified courses in a bitmask column, and the credentials of all students live in a
+ * {@link CredentialStore}, which may keep the older ones on disk. Credentials
+ * are validated before they get here, so they are always plain ASCII.
+ * <p>
+ * The numeric columns are split into shards of {@link #SHARD_SIZE} rows.
+ * Growing the store only allocates a new shard instead of copying every
+ * column, and each shard is a unit of work for {@link StatisticsEngine}.
+ */
+public class StudentStore {
+    public static final int SHARD_SIZE = 1 << 16;
+    private static final int SHARD_BITS = 16;
+    private static final int SHARD_MASK = SHARD_SIZE - 1;
+
+    private final int firstId;
+    private final CourseRegistry courses;
+    private int size;
+
+    private Shard[] shards = new Shard[1];
+    private int shardCount;
+
+    private final CredentialStore credentials;
+
+    public StudentStore(int firstId, CourseRegistry courses) {
+        this(firstId, courses, CredentialStore.inMemory());
+    }
+
+    public StudentStore(int firstId, CourseRegistry courses, CredentialStore credentials) {
+        this.firstId = firstId;
+        this.courses = courses;
+        this.credentials = credentials;
+    }
+
+    private static final class Shard {
+        final int[][] pointColumns;
+        final long[] notifiedCourses = new long[SHARD_SIZE];
+
+        Shard(int courseCount) {
+            pointColumns = new int[courseCount][SHARD_SIZE];
+        }
+    }
+
+    /**
+     * A copy of the points and notified courses of the rows in use, taken while the
+     * store is held still, so that it can be written out while the store moves on.
+     */
+    public static final class Progress {
+        private final int[][][] pointShards;
+        private final long[][] notifiedShards;
+
+        private Progress(int[][][] pointShards, long[][] notifiedShards) {
+            this.pointShards = pointShards;
+            this.notifiedShards = notifiedShards;
+        }
+
+        public int getPoints(int row, int courseIndex) {
+            return pointShards[row >>> SHARD_BITS][courseIndex][row & SHARD_MASK];
+        }
+
+        public long getNotifiedCourses(int row) {
+            return notifiedShards[row >>> SHARD_BITS][row & SHARD_MASK];
+        }
+    }
+
+    public int add(String firstName, String lastName, String email) {
+        ensureCapacity(size + 1);
+        credentials.add(firstName, lastName, email);
+        return firstId + size++;
+    }
+
+    public boolean contains(int id) {
+        return id >= firstId && id - firstId < size;
+    }
+
+    // Looks a student up for use, which keeps its credentials in the cache if they are cold
+    public Student get(int id) {
+        if (!contains(id)) {
+            return null;
+        }
+        credentials.touch(id - firstId);
+        return new Student(this, id);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getFirstId() {
+        return firstId;
+    }
+
+    public CourseRegistry getCourses() {
+        return courses;
+    }
+
+    public CredentialStore getCredentialStore() {
+        return credentials;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    // Number of rows in use in the shard; only the last shard can be partly filled
+    public int getShardRows(int shard) {
+        return Math.min(SHARD_SIZE, size - shard * SHARD_SIZE);
+    }
+
+    // The shard's slice of a course's points column, for bulk scans; not a copy
+    int[] getPointShard(int shard, int courseIndex) {
+        return shards[shard].pointColumns[courseIndex];
+    }
+
+    public int getPoints(int id, int courseIndex) {
+        int row = id - firstId;
+        return shards[row >>> SHARD_BITS].pointColumns[courseIndex][row & SHARD_MASK];
+    }
+
+    public void addPoints(int id, int courseIndex, int points) {
+        int row = id - firstId;
+        shards[row >>> SHARD_BITS].pointColumns[courseIndex][row & SHARD_MASK] += points;
+    }
+
+    public boolean isNotified(int id, int courseIndex) {
+        return (getNotifiedCourses(id) & (1L << courseIndex)) != 0;
+    }
+
+    public void markNotified(int id, int courseIndex) {
+        setNotifiedCourses(id, getNotifiedCourses(id) | 1L << courseIndex);
+    }
+
+    public long getNotifiedCourses(int id) {
+        int row = id - firstId;
+        return shards[row >>> SHARD_BITS].notifiedCourses[row & SHARD_MASK];
+    }
+
+    public void setNotifiedCourses(int id, long courseMask) {
+        int row = id - firstId;
+        shards[row >>> SHARD_BITS].notifiedCourses[row & SHARD_MASK] = courseMask;
+    }
+
+    // Copies whole shard columns, which is far quicker than anything done per student
+    public Progress copyProgress() {
+        int[][][] pointShards = new int[shardCount][courses.size()][];
+        long[][] notifiedShards = new long[shardCount][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            int rows = getShardRows(shard);
+            for (int course = 0; course < courses.size(); course++) {
+                pointShards[shard][course] = Arrays.copyOf(shards[shard].pointColumns[course], rows);
+            }
+            notifiedShards[shard] = Arrays.copyOf(shards[shard].notifiedCourses, rows);
+        }
+        return new Progress(pointShards, notifiedShards);
+    }
+
+    // The getters for single fields are for scans and do not bring the student into the credential cache
+    public String getFirstName(int id) {
+        return credentials.peekField(id - firstId, 0);
+    }
+
+    public String getLastName(int id) {
+        return credentials.peekField(id - firstId, 1);
+    }
+
+    public String getEmail(int id) {
+        return credentials.peekField(id - firstId, 2);
+    }
+
+    // For students that are being worked with, served from the credential cache when they are cold
+    public CredentialStore.Credentials getCredentials(int id) {
+        return credentials.get(id - firstId);
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows > shardCount * SHARD_SIZE) {
+            if (shardCount == shards.length) {
+                shards = Arrays.copyOf(shards, shardCount * 2);
+            }
+            shards[shardCount++] = new Shard(courses.size());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package tracker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recent per-course submissions, kept so activity can be queried over a sliding window.
+ * The last {@link #CAPACITY} submissions are held as course ids in a ring buffer, and every
+ * run of {@link #BLOCK_SIZE} submissions has its own per-course counters. A window over the
+ * last N submissions is then a sum over whole blocks plus a scan of less than one block,
+ * whatever the size of N. Windows over the last N minutes are served from one bucket per
+ * minute covering the last day.
+ * <p>
+ * Recording takes no lock: a submission claims its ring slots by advancing one counter,
+ * and counts into per-course {@link LongAdder}s of its block and minute. A block or minute
+ * that is reused gets new counters, installed with a compare-and-set, instead of being
+ * cleared under the feet of concurrent writers. A query racing with updates may miss the
+ * submissions still being recorded, but never counts one twice.
+ */
+public class SubmissionHistory {
+    public static final int CAPACITY = 1 << 20;
+    public static final int MINUTE_BUCKETS = 24 * 60;
+    private static final int BLOCK_SIZE = 1 << 10;
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    private static final VarHandle RING = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int courseCount;
+    private final byte[] courseRing = new byte[CAPACITY];
+    private final AtomicReferenceArray<Counters> blocks = new AtomicReferenceArray<>(CAPACITY / BLOCK_SIZE + 1);
+    private final AtomicReferenceArray<Counters> minutes = new AtomicReferenceArray<>(MINUTE_BUCKETS);
+    private final AtomicLong recorded = new AtomicLong();
+
+    // The counts of one block or one minute, and which one it is
+    private static final class Counters {
+        final long number;
+        final LongAdder[] counts;
+
+        Counters(long number, int courseCount) {
+            this.number = number;
+            this.counts = new LongAdder[courseCount];
+            for (int course = 0; course < courseCount; course++) {
+                counts[course] = new LongAdder();
+            }
+        }
+    }
+
+    public SubmissionHistory(int courseCount) {
+        this.courseCount = courseCount;
+    }
+
+    // Every course with positive points counts as one submission to that course
+    public void record(int[] points) {
+        int submitted = 0;
+        for (int value : points) {
+            if (value > 0) {
+                submitted++;
+            }
+        }
+        if (submitted == 0) {
+            return;
+        }
+
+        long minute = System.currentTimeMillis() / MILLIS_PER_MINUTE;
+        Counters minuteCounts = countersFor(minutes, minute);
+        long sequence = recorded.getAndAdd(submitted);
+        for (int course = 0; course < points.length; course++) {
+            if (points[course] <= 0) {
+                continue;
+            }
+            RING.setRelease(courseRing, (int) (sequence % CAPACITY), (byte) course);
+            Counters block = countersFor(blocks, sequence / BLOCK_SIZE);
+            if (block != null) {
+                block.counts[course].increment();
+            }
+            if (minuteCounts != null) {
+                minuteCounts.counts[course].increment();
+            }
+            sequence++;
+        }
+    }
+
+    // Per-course counts among the most recent submissions, at most CAPACITY of them
+    public long[] countLastSubmissions(long submissions) {
+        long end = recorded.get();
+        long window = Math.min(submissions, Math.min(end, CAPACITY));
+        long start = end - window;
+        long firstBlock = (start + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        long[] counts = new long[courseCount];
+        long boundary = Math.min(firstBlock * BLOCK_SIZE, end);
+        for (long i = start; i < boundary; i++) {
+            counts[(byte) RING.getAcquire(courseRing, (int) (i % CAPACITY))]++;
+        }
+        for (long block = firstBlock; block * BLOCK_SIZE < end; block++) {
+            addCounts(blocks.get((int) (block % blocks.length())), block, counts);
+        }
+        return counts;
+    }
+
+    // Per-course counts in the current minute and the minutes before it, at most a day back
+    public long[] countLastMinutes(int minuteCount) {
+        long currentMinute = System.currentTimeMillis() / MILLIS_PER_MINUTE;
+        int window = Math.min(minuteCount, MINUTE_BUCKETS);
+        long[] counts = new long[courseCount];
+        for (long minute = currentMinute; minute > currentMinute - window; minute--) {
+            addCounts(minutes.get((int) (minute % MINUTE_BUCKETS)), minute, counts);
+        }
+        return counts;
+    }
+
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    // Only used while recovering, before the history is shared
+    public void clear() {
+        recorded.set(0);
+        for (int i = 0; i < blocks.length(); i++) {
+            blocks.set(i, null);
+        }
+        for (int i = 0; i < MINUTE_BUCKETS; i++) {
+            minutes.set(i, null);
+        }
+    }
+
+    // Returns the counters of the given block or minute, replacing an older one in its slot; null if a newer one is there
+    private Counters countersFor(AtomicReferenceArray<Counters> ring, long number) {
+        int slot = (int) (number % ring.length());
+        while (true) {
+            Counters counters = ring.get(slot);
+            if (counters != null && counters.number >= number) {
+                return counters.number == number ? counters : null;
+            }
+            Counters fresh = new Counters(number, courseCount);
+            if (ring.compareAndSet(slot, counters, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private void addCounts(Counters counters, long number, long[] counts) {
+        if (counters != null && counters.number == number) {
+            for (int course = 0; course < courseCount; course++) {
+                counts[course] += counters.counts[course].sum();
+            }
+        }
+    }
+}
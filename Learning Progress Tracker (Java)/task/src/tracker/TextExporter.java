@@ -0,0 +1,148 @@
+package tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Formatter;
+
+/**
+ * Streams the student list or a course leaderboard to a text file in the same format
+ * as {@code list} and the course details.
+ * <p>
+ * Lines are encoded straight into one direct buffer that is written to a
+ * {@link FileChannel} whenever it fills up, so the export takes the same small amount
+ * of memory for any roster size. Leaderboards are walked through
+ * {@link StudentManager#forEachLearnerAfter}, which reads a snapshot of the leaderboard
+ * without taking any lock, so updates carry on while the file is written and the file
+ * shows the course as it was when the export started.
+ */
+public class TextExporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final StudentManager studentManager;
+
+    public TextExporter(StudentManager studentManager) {
+        this.studentManager = studentManager;
+    }
+
+    // Returns the number of students written
+    public long exportStudentList(Path file) throws IOException {
+        int studentCount = studentManager.getStudentCount();
+        int firstStudentId = studentManager.getFirstStudentId();
+        try (LineWriter writer = new LineWriter(file)) {
+            if (studentCount == 0) {
+                writer.append("No students found.\n");
+                return 0;
+            }
+            writer.append("Students:\n");
+            for (int row = 0; row < studentCount; row++) {
+                writer.append(firstStudentId + row).append('\n');
+            }
+        }
+        return studentCount;
+    }
+
+    // Returns the number of learners written
+    public long exportCourse(int courseIndex, Path file) throws IOException {
+        StringBuilder line = new StringBuilder();
+        Formatter formatter = new Formatter(line);
+        try (LineWriter writer = new LineWriter(file)) {
+            writer.append(studentManager.getCourses().getName(courseIndex).getBytes(StandardCharsets.UTF_8)).append('\n');
+            writer.append("id\tpoints\tcompleted\n");
+            return studentManager.forEachLearnerAfter(courseIndex, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                    (id, points) -> {
+                        line.setLength(0);
+                        formatter.format("%d\t%d\t%.1f%%\n", id, points,
+                                studentManager.calculateCompletionPercentage(points, courseIndex));
+                        writer.appendUnchecked(line);
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Chars are written as single bytes, which is right for the ASCII digits, separators and labels it gets
+    private static final class LineWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        LineWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        LineWriter append(CharSequence text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+            return this;
+        }
+
+        LineWriter append(byte[] bytes) throws IOException {
+            for (byte b : bytes) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put(b);
+            }
+            return this;
+        }
+
+        LineWriter append(char c) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            return this;
+        }
+
+        LineWriter append(int value) throws IOException {
+            if (buffer.remaining() < 11) {
+                drain();
+            }
+            if (value < 0) {
+                return append(Integer.toString(value));
+            }
+            int digits = 1;
+            for (int rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int end = buffer.position() + digits;
+            for (int i = end - 1; i >= buffer.position(); i--) {
+                buffer.put(i, (byte) ('0' + value % 10));
+                value /= 10;
+            }
+            buffer.position(end);
+            return this;
+        }
+
+        void appendUnchecked(CharSequence text) {
+            try {
+                append(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
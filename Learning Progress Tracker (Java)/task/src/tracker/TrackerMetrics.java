@@ -0,0 +1,152 @@
+package tracker;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency, throughput and outcome counters for the commands of all sessions.
+ * <p>
+ * Every operation has its own {@link LatencyHistogram}, and outcomes are counted in
+ * an atomic array indexed by ordinal, so recording stays lock-free and allocation-free.
+ * Gauges are read from the student manager only when the metrics are displayed,
+ * including the credential cache's hit rate when credentials are tiered and the
+ * notification dispatcher's counters when notifications go to an outbox.
+ */
+public class TrackerMetrics implements TrackerMetricsMXBean {
+    private static final String DOMAIN = "tracker";
+
+    public enum Operation {
+        ADD_STUDENT("add student"),
+        ADD_POINTS("add points"),
+        FIND("find"),
+        LIST("list"),
+        STATISTICS("statistics"),
+        COURSE_DETAILS("course details"),
+        DISTRIBUTION("distribution"),
+        NOTIFY("notify"),
+        IMPORT("import");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final AtomicLongArray outcomeCounts = new AtomicLongArray(Outcome.values().length);
+    private final IntSupplier studentCount;
+    private final LongSupplier submissionCount;
+    private final CredentialStore credentials;
+    private volatile NotificationDispatcher notificationDispatcher;
+
+    public TrackerMetrics(IntSupplier studentCount, LongSupplier submissionCount, CredentialStore credentials) {
+        this.studentCount = studentCount;
+        this.submissionCount = submissionCount;
+        this.credentials = credentials;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    // Records an operation that started at the given System.nanoTime()
+    public void record(Operation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void recordOutcome(Outcome outcome) {
+        outcomeCounts.incrementAndGet(outcome.ordinal());
+    }
+
+    public void recordOutcomes(Outcome outcome, long count) {
+        outcomeCounts.addAndGet(outcome.ordinal(), count);
+    }
+
+    void setNotificationDispatcher(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public long getUptimeSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public int getStudentCount() {
+        return studentCount.getAsInt();
+    }
+
+    @Override
+    public long getSubmissionCount() {
+        return submissionCount.getAsLong();
+    }
+
+    @Override
+    public Map<String, Long> getOutcomeCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Outcome outcome : Outcome.values()) {
+            counts.put(outcome.getSummaryLabel(), outcomeCounts.get(outcome.ordinal()));
+        }
+        return counts;
+    }
+
+    public void print(PrintWriter out) {
+        double uptimeSeconds = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+        out.printf("Uptime: %.1f s, students: %d, submissions: %d%n", uptimeSeconds, getStudentCount(), getSubmissionCount());
+        out.println("operation\tcount\tper second\tmean us\tp50 us\tp90 us\tp99 us\tmax us");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = getLatency(operation);
+            out.printf("%s\t%d\t%.1f\t%.1f\t%d\t%d\t%d\t%d%n", operation.getLabel(), latency.getCount(),
+                    latency.getCount() / uptimeSeconds, latency.getMeanMicros(), latency.getP50Micros(),
+                    latency.getP90Micros(), latency.getP99Micros(), latency.getMaxMicros());
+        }
+        out.println("outcome\tcount");
+        getOutcomeCounts().forEach((label, count) -> out.println(label + "\t" + count));
+        if (credentials.isTiered()) {
+            out.printf("Credential cache: %d hits, %d misses, %.1f%% hit rate, %d students cached, %d KiB on heap, %d KiB on disk%n",
+                    credentials.getHits(), credentials.getMisses(), credentials.getHitRate() * 100,
+                    credentials.getCachedStudents(), credentials.getHeapBytes() / 1024, credentials.getColdBytes() / 1024);
+        }
+        NotificationDispatcher dispatcher = notificationDispatcher;
+        if (dispatcher != null) {
+            out.printf("Notifications: %d submitted, %d delivered, %d queued, %d retries, %d failed%n",
+                    dispatcher.getSubmittedCount(), dispatcher.getDeliveredCount(), dispatcher.getQueuedCount(),
+                    dispatcher.getRetryCount(), dispatcher.getFailedCount());
+        }
+    }
+
+    // Publishes these metrics and one bean per operation to the platform MBean server
+    public void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(DOMAIN + ":type=Tracker"));
+        for (Operation operation : Operation.values()) {
+            server.registerMBean(getLatency(operation),
+                    new ObjectName(DOMAIN + ":type=Latency,operation=" + operation.getLabel().replace(' ', '-')));
+        }
+        if (credentials.isTiered()) {
+            server.registerMBean(credentials, new ObjectName(DOMAIN + ":type=CredentialCache"));
+        }
+        NotificationDispatcher dispatcher = notificationDispatcher;
+        if (dispatcher != null) {
+            server.registerMBean(dispatcher, new ObjectName(DOMAIN + ":type=Notifications"));
+        }
+    }
+}
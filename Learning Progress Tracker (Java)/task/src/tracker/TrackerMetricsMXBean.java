@@ -0,0 +1,18 @@
+package tracker;
+
+import java.util.Map;
+
+/**
+ * JMX view of the tracker-wide counters and gauges of {@link TrackerMetrics}.
+ */
+public interface TrackerMetricsMXBean {
+
+    long getUptimeSeconds();
+
+    int getStudentCount();
+
+    long getSubmissionCount();
+
+    // Keyed by outcome message, e.g. "Incorrect email."
+    Map<String, Long> getOutcomeCounts();
+}
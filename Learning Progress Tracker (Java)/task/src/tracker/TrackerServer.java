@@ -0,0 +1,87 @@
+package tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the tracker over TCP. Every connection is a separate session that
+ * speaks the same line-based commands as the console, against one shared
+ * {@link StudentManager}, except those that read or write files on this
+ * machine: {@code import}, {@code save} and {@code export}.
+ * <p>
+ * Each connection runs on its own virtual thread when the runtime provides
+ * them (Java 21+), and on a cached platform thread otherwise.
+ */
+public class TrackerServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final StudentManager studentManager;
+    private final ExecutorService connections = newConnectionExecutor();
+
+    // Listens on the loopback interface only
+    public TrackerServer(int port, StudentManager studentManager) {
+        this(InetAddress.getLoopbackAddress(), port, studentManager);
+    }
+
+    public TrackerServer(InetAddress bindAddress, int port, StudentManager studentManager) {
+        this.studentManager = studentManager;
+        try {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + bindAddress.getHostAddress() + ":" + port, e);
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Accepts connections until the server is closed
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                return; // Closed while waiting for a connection
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        connections.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            ConsoleIO console = new ConsoleIO(socket.getInputStream(), socket.getOutputStream());
+            CommandProcessor.forRemoteClient(console, studentManager).run();
+        } catch (IOException | UncheckedIOException ignored) {
+            // The client went away; its session simply ends
+        }
+    }
+
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Runs scripts of many batches through the pipeline: the output must match an
+ * interactive session, and a writer that fails must fail the run instead of
+ * leaving the other stages waiting on it.
+ */
+class BatchPipelineTest {
+    private static final int STUDENTS = 30_000;
+
+    @Test
+    void outputMatchesAnInteractiveSession(@TempDir Path directory) throws IOException {
+        List<String> lines = script();
+        Path script = Files.write(directory.resolve("script.txt"), lines, Charset.defaultCharset());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new BatchPipeline(new StudentManager()).run(script, output);
+
+        assertEquals(CommandProcessorTest.runSession(new StudentManager(), lines.toArray(new String[0])),
+                output.toString(Charset.defaultCharset()).replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void failingWriterFailsTheRun(@TempDir Path directory) throws IOException {
+        Path script = Files.write(directory.resolve("script.txt"), script(), Charset.defaultCharset());
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+
+        IOException failure = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(IOException.class, () -> new BatchPipeline(new StudentManager()).run(script, broken)));
+        assertEquals("Disk full", failure.getMessage());
+    }
+
+    // Enough lines for many more batches than the queues between the stages hold
+    private static List<String> script() {
+        List<String> lines = new ArrayList<>(List.of("add students"));
+        for (int i = 0; i < STUDENTS; i++) {
+            lines.add("First Last s" + i + "@example.com");
+        }
+        lines.addAll(List.of("back", "add points"));
+        for (int i = 0; i < STUDENTS; i++) {
+            lines.add((1000 + i) + " " + i % 7 + " 1 0 " + i % 3);
+        }
+        lines.addAll(List.of("back", "statistics", "back", "exit"));
+        return lines;
+    }
+}
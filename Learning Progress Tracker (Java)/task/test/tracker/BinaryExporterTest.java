@@ -0,0 +1,66 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes exports of a roster larger than one chunk and reads them back.
+ */
+class BinaryExporterTest {
+    private static final int STUDENTS = 10_000;
+
+    @Test
+    void rosterAndCourseExportsReadBackAsWritten(@TempDir Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(5);
+        StudentManager studentManager = new StudentManager();
+        for (int i = 0; i < STUDENTS; i++) {
+            studentManager.registerStudent(InputParser.parseStudent(
+                    (i % 2 == 0 ? "Ann" : "Bob") + " Lee" + (char) ('a' + i % 26) + " s" + i + "@host" + i % 7 + ".com"));
+            if (random.nextInt(4) != 0) {
+                studentManager.applyPoints(InputParser.parsePoints(
+                        (1000 + i) + " " + random.nextInt(700) + " " + random.nextInt(3) + " 0 5", 4));
+            }
+        }
+
+        BinaryExporter exporter = new BinaryExporter(studentManager);
+        Path roster = directory.resolve("roster.lptx");
+        assertEquals(STUDENTS, exporter.exportRoster(roster));
+        BinaryExportReader rosterReader = BinaryExportReader.open(roster);
+        assertFalse(rosterReader.isCourseExport());
+        assertEquals(STUDENTS, rosterReader.getRowCount());
+        for (int row = 0; row < STUDENTS; row += 37) {
+            assertEquals(1000 + row, rosterReader.getId(row));
+            assertEquals("s" + row + "@host" + row % 7 + ".com", rosterReader.getEmail(row));
+            assertEquals(row % 2 == 0 ? "Ann" : "Bob", rosterReader.getFirstName(row));
+        }
+
+        Path course = directory.resolve("java.lptx");
+        List<int[]> leaderboard = new ArrayList<>();
+        studentManager.forEachLearnerAfter(0, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                (id, points) -> leaderboard.add(new int[]{id, points}));
+        assertTrue(leaderboard.size() > 4096, "the export should span several chunks");
+        assertEquals(leaderboard.size(), exporter.exportCourse(0, course));
+
+        BinaryExportReader courseReader = BinaryExportReader.open(course);
+        assertTrue(courseReader.isCourseExport());
+        assertEquals("Java", courseReader.getCourseName(0));
+        assertEquals(leaderboard.size(), courseReader.getRowCount());
+        for (int row = 0; row < leaderboard.size(); row++) {
+            int id = leaderboard.get(row)[0];
+            assertEquals(id, courseReader.getId(row));
+            assertEquals(leaderboard.get(row)[1], courseReader.getPoints(row, 0));
+            assertEquals(leaderboard.get(row)[1] >= 600, courseReader.isCompleted(row, 0));
+            assertEquals("s" + (id - 1000) + "@host" + (id - 1000) % 7 + ".com", courseReader.getEmail(row));
+        }
+    }
+}
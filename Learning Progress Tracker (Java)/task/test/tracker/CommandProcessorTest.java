@@ -0,0 +1,177 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CommandProcessorTest {
+
+    // Runs one console session over the given lines and returns everything it printed
+    static String runSession(StudentManager studentManager, String... lines) {
+        Charset charset = Charset.defaultCharset();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConsoleIO console = new ConsoleIO(new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(charset)),
+                output);
+        new CommandProcessor(console, studentManager).run();
+        return output.toString(charset).replace(System.lineSeparator(), "\n");
+    }
+
+    @Test
+    void sessionPrintsTheSameTranscriptAsTheOriginalTracker() {
+        String transcript = runSession(new StudentManager(),
+                "add students", "John Smith jsmith@hotmail.com", "Jane Doe x", "back",
+                "list",
+                "add points", "1000 8 7 7 5", "back",
+                "find", "1000", "back",
+                "exit");
+
+        assertEquals("""
+                Learning Progress Tracker
+                Enter student credentials or 'back' to return:
+                The student has been added.
+                Incorrect email.
+                Total 1 students have been added.
+                Students:
+                1000
+                Enter an id and points or 'back' to return:
+                Points updated.
+                Enter an id or 'back' to return:
+                1000 points: Java=8; DSA=7; Databases=7; Spring=5
+                Bye!
+                """, transcript);
+    }
+
+    @Test
+    void coursePageCursorResumesWhereThePageEnded() {
+        String transcript = runSession(new StudentManager(),
+                "add students", "Ann Lee a@x.com", "Bob Lee b@x.com", "Cid Lee c@x.com", "Dan Lee d@x.com", "back",
+                "add points", "1000 40 0 0 0", "1001 30 0 0 0", "1002 20 0 0 0", "1003 10 0 0 0", "back",
+                "course Java top 2",
+                // The last learner of the page overtakes everyone before the next page is asked for
+                "add points", "1001 50 0 0 0", "back",
+                "course Java top 2 after 1001 30",
+                "exit");
+
+        assertEquals("""
+                Learning Progress Tracker
+                Enter student credentials or 'back' to return:
+                The student has been added.
+                The student has been added.
+                The student has been added.
+                The student has been added.
+                Total 4 students have been added.
+                Enter an id and points or 'back' to return:
+                Points updated.
+                Points updated.
+                Points updated.
+                Points updated.
+                Java
+                id\tpoints\tcompleted
+                1000\t40\t6.7%
+                1001\t30\t5.0%
+                More learners: course Java top 2 after 1001 30
+                Enter an id and points or 'back' to return:
+                Points updated.
+                Java
+                id\tpoints\tcompleted
+                1002\t20\t3.3%
+                1003\t10\t1.7%
+                More learners: course Java top 2 after 1003 10
+                Bye!
+                """, transcript);
+    }
+
+    @Test
+    void rankCommandMatchesASortedRescan() {
+        SplittableRandom random = new SplittableRandom(3);
+        StudentManager studentManager = new StudentManager();
+        int[] points = new int[60];
+        for (int i = 0; i < points.length; i++) {
+            studentManager.registerStudent(InputParser.parseStudent("Ann Lee s" + i + "@x.com"));
+            points[i] = random.nextInt(4) * 10;
+            studentManager.applyPoints(InputParser.parsePoints((1000 + i) + " 0 " + points[i] + " 0 0", 4));
+        }
+
+        List<String> lines = new ArrayList<>();
+        List<Integer> enrolled = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            lines.add("rank " + (1000 + i) + " DSA");
+            if (points[i] > 0) {
+                enrolled.add(i);
+            }
+        }
+        enrolled.sort(Comparator.<Integer>comparingInt(i -> -points[i]).thenComparingInt(i -> i));
+        lines.addAll(List.of("rank 5000 DSA", "rank 1000 Go", "rank x DSA", "course DSA top 3", "exit"));
+
+        StringBuilder expected = new StringBuilder("Learning Progress Tracker\n");
+        for (int i = 0; i < points.length; i++) {
+            expected.append(points[i] == 0 ? "Student " + (1000 + i) + " is not enrolled in DSA.\n"
+                    : "Student " + (1000 + i) + " is ranked " + (enrolled.indexOf(i) + 1) + " of " + enrolled.size()
+                    + " in DSA.\n");
+        }
+        expected.append("No student is found for id=5000.\nUnknown course.\nIncorrect ID format.\n");
+        expected.append("DSA\nid\tpoints\tcompleted\n");
+        for (int i = 0; i < 3; i++) {
+            int row = enrolled.get(i);
+            expected.append(1000 + row).append('\t').append(points[row]).append('\t')
+                    .append(String.format("%.1f%%", points[row] / 400.0 * 100)).append('\n');
+        }
+        expected.append("More learners: course DSA top 3 after ").append(1000 + enrolled.get(2)).append(' ')
+                .append(points[enrolled.get(2)]).append("\nBye!\n");
+
+        assertEquals(expected.toString(), runSession(studentManager, lines.toArray(new String[0])));
+    }
+
+    @Test
+    void nameSearchPagesResumeAfterTheLastStudentShown() {
+        StudentManager studentManager = new StudentManager();
+        for (int i = 0; i < 22; i++) {
+            // Every other student matches "le" by the first name, the rest by the last name
+            studentManager.registerStudent(InputParser.parseStudent(
+                    (i % 2 == 0 ? "Lea Moe" : "Ann Lee") + " s" + i + "@x.com"));
+        }
+        studentManager.registerStudent(InputParser.parseStudent("Bob Moe b@x.com"));
+
+        String transcript = runSession(studentManager, "find", "name le", "name le after 1017", "name le after 1021",
+                "name le after 5000", "name le 2", "name bo", "back", "exit");
+
+        StringBuilder expected = new StringBuilder("Learning Progress Tracker\nEnter an id or 'back' to return:\n");
+        // Matches are ordered by the matching name, and "lea" comes before "lee"
+        for (int id = 1000; id < 1022; id += 2) {
+            expected.append(id).append(" points: Java=0; DSA=0; Databases=0; Spring=0\n");
+        }
+        for (int id = 1001; id <= 1017; id += 2) {
+            expected.append(id).append(" points: Java=0; DSA=0; Databases=0; Spring=0\n");
+        }
+        expected.append("More students: name le after 1017\n");
+        expected.append("1019 points: Java=0; DSA=0; Databases=0; Spring=0\n");
+        expected.append("1021 points: Java=0; DSA=0; Databases=0; Spring=0\n");
+        expected.append("No more students found.\n");
+        expected.append("No student is found for id=5000.\n");
+        expected.append("Incorrect search format.\n");
+        expected.append("1022 points: Java=0; DSA=0; Databases=0; Spring=0\n");
+        expected.append("Bye!\n");
+        assertEquals(expected.toString(), transcript);
+    }
+
+    @Test
+    void unknownCommandsAndBlankLinesAreReported() {
+        String transcript = runSession(new StudentManager(), "", "hello", "back", "exit");
+
+        assertEquals("""
+                Learning Progress Tracker
+                No input.
+                Error: unknown command!
+                Enter 'exit' to exit the program.
+                Bye!
+                """, transcript);
+    }
+}
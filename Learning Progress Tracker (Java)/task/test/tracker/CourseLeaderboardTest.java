@@ -0,0 +1,92 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks ranks and top-N walks against a sort of every entry, while points keep
+ * changing and many students share the same points, and that updates racing
+ * each other without a lock all land.
+ */
+class CourseLeaderboardTest {
+
+    @Test
+    void ranksAndTopLearnersMatchASortedRescan() {
+        SplittableRandom random = new SplittableRandom(11);
+        CourseLeaderboard leaderboard = new CourseLeaderboard();
+        Map<Integer, Integer> points = new HashMap<>();
+        for (int round = 0; round < 40; round++) {
+            for (int update = 0; update < 200; update++) {
+                int id = 1000 + random.nextInt(500);
+                int oldPoints = points.getOrDefault(id, 0);
+                // Few distinct values, so most ranks are decided by the tie order
+                int newPoints = oldPoints + 1 + random.nextInt(3);
+                leaderboard.update(id, oldPoints, newPoints);
+                points.put(id, newPoints);
+            }
+
+            List<int[]> sorted = new ArrayList<>();
+            points.forEach((id, studentPoints) -> sorted.add(new int[]{id, studentPoints}));
+            sorted.sort(Comparator.<int[]>comparingInt(entry -> -entry[1]).thenComparingInt(entry -> entry[0]));
+            CourseLeaderboard.Snapshot snapshot = leaderboard.snapshot();
+            for (int rank = 0; rank < sorted.size(); rank++) {
+                int[] entry = sorted.get(rank);
+                assertEquals(rank, snapshot.rankOf(entry[0], entry[1]), "rank of " + entry[0]);
+                assertEquals(-1, snapshot.rankOf(entry[0], entry[1] + 1), "stale points of " + entry[0]);
+            }
+            assertEquals(-1, snapshot.rankOf(999, 1));
+
+            int limit = random.nextInt(sorted.size() + 10);
+            List<int[]> top = new ArrayList<>();
+            snapshot.forEachTop(limit, (id, studentPoints) -> top.add(new int[]{id, studentPoints}));
+            assertEquals(Math.min(limit, sorted.size()), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals(sorted.get(i)[0], top.get(i)[0]);
+                assertEquals(sorted.get(i)[1], top.get(i)[1]);
+            }
+        }
+    }
+
+    @Test
+    void concurrentUpdatesAllLand() throws Exception {
+        CourseLeaderboard leaderboard = new CourseLeaderboard();
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int first = 1000 + writer * 250;
+                done.add(writers.submit(() -> {
+                    // Each writer owns its students, as the student locks guarantee
+                    for (int round = 1; round <= 20; round++) {
+                        for (int id = first; id < first + 250; id++) {
+                            leaderboard.update(id, round - 1, round);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        CourseLeaderboard.Snapshot snapshot = leaderboard.snapshot();
+        assertEquals(1000, snapshot.size());
+        for (int id = 1000; id < 2000; id++) {
+            assertEquals(id - 1000, snapshot.rankOf(id, 20));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that students in use get their cold credentials cached, and that only
+ * reads of cold records are counted as hits or misses.
+ */
+class CredentialStoreTest {
+    private static final int STUDENTS = 60_000;
+
+    @Test
+    void lookupsFillTheCacheAndOnlyColdReadsCount(@TempDir Path directory) throws IOException {
+        try (CredentialStore credentials = CredentialStore.tiered(directory.resolve("credentials.seg"), 100)) {
+            StudentManager studentManager = new StudentManager(CourseRegistry.defaultCatalog(),
+                    StudentManager.FIRST_STUDENT_ID, credentials);
+            for (int i = 0; i < STUDENTS; i++) {
+                studentManager.registerStudent(InputParser.parseStudent("First Last s" + i + "@example.com"));
+            }
+            assertTrue(credentials.getColdBytes() > 0, "the first students should have been spilled");
+
+            // Reads from the heap tail are not cache traffic
+            credentials.get(STUDENTS - 1);
+            assertEquals(0, credentials.getHits() + credentials.getMisses());
+
+            studentManager.applyPoints(InputParser.parsePoints("1000 5 0 0 0", 4));
+            assertEquals(1, credentials.getCachedStudents());
+            assertEquals(1, credentials.getMisses());
+
+            studentManager.findStudents("1001", new PrintWriter(new StringWriter()));
+            assertEquals(2, credentials.getCachedStudents());
+            assertEquals(2, credentials.getMisses());
+
+            // Both are served from the cache from now on
+            assertEquals("s0@example.com", credentials.get(0).email());
+            studentManager.findStudents("email s1@example.com", new PrintWriter(new StringWriter()));
+            assertEquals(2, credentials.getHits());
+            assertEquals(2, credentials.getMisses());
+        }
+    }
+}
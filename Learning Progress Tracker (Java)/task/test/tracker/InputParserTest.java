@@ -0,0 +1,217 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link InputParser} answers every line exactly like the regex and
+ * split based validation it replaced, which {@link Legacy} keeps verbatim.
+ */
+class InputParserTest {
+    private static final int COURSES = 4;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "John Smith jsmith@hotmail.com",
+            "Jean-Clause van Helsing jcda123@google.net",
+            "Al Owen u.15@ex.ample.com",
+            "Robert Jemison Van de Graaff robertvdgraaff@mit.edu",
+            "Ed Eden a1@a1.a1",
+            "na'me s-u ii@ii.ii",
+            "  John \t Smith   j@s.com  ",
+            "John Smith",
+            "John",
+            "",
+            "   ",
+            "J. Doe name@domain.com",
+            "John D. name@domain.com",
+            "-John Doe a@b.c",
+            "John' Doe a@b.c",
+            "Jo''hn Doe a@b.c",
+            "Jo--hn Doe a@b.c",
+            "Jo'-hn Doe a@b.c",
+            "Jo-'hn Doe a@b.c",
+            "J Doe a@b.c",
+            "John D a@b.c",
+            "Jöhn Doe a@b.c",
+            "John Doe email",
+            "John Doe email@",
+            "John Doe @domain.com",
+            "John Doe email@domain",
+            "John Doe email@domain.",
+            "John Doe email@@domain.com",
+            "John Doe e+mail@domain.com",
+            "John Doe em_ail@do-main.co_m",
+            "John Doe email@domain..com",
+    })
+    void credentialsMatchTheRegexValidation(String line) {
+        assertSameStudent(line);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1000 1 2 3 4",
+            "  1000\t0 0 0 0 ",
+            "1000 1 2 3",
+            "1000 1 2 3 4 5",
+            "",
+            "   ",
+            "abc 1 2 3 4",
+            "1000 -1 2 3 4",
+            "1000 1 -0 3 4",
+            "1000 +1 2 3 4",
+            "1000 1 two 3 4",
+            "1000 1 2.5 3 4",
+            "1000 2147483647 0 0 0",
+            "1000 2147483648 0 0 0",
+            "-1000 1 2 3 4",
+            "99999999999 1 2 3 4",
+            "+ 1 2 3 4",
+            "1000 - 2 3 4",
+            "1000 ٣ 0 0 0",
+    })
+    void pointsMatchTheSplitAndParseIntValidation(String line) {
+        assertSamePoints(line);
+    }
+
+    @Test
+    void randomLinesMatchTheOriginalValidation() {
+        SplittableRandom random = new SplittableRandom(42);
+        String alphabet = "abcXYZ'-'-  \t.@@._019+-\u0001é٣";
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int c = 0; c < length; c++) {
+                line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameStudent(line.toString());
+            assertSamePoints(line.toString());
+            assertArrayEquals(line.toString().trim().split("\\s+"), InputParser.splitTokens(line.toString()));
+        }
+    }
+
+    @Test
+    void randomPointsLinesMatchTheOriginalValidation() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] tokens = {"0", "1", "17", "-3", "+5", "007", "2147483647", "2147483648", "-2147483648", "x", "1e3", ""};
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder line = new StringBuilder();
+            int count = random.nextInt(3, 8);
+            for (int t = 0; t < count; t++) {
+                line.append(random.nextBoolean() ? " " : "\t ").append(tokens[random.nextInt(tokens.length)]);
+            }
+            assertSamePoints(line.toString());
+        }
+    }
+
+    @Test
+    void findIdsAreDigitsOnly() {
+        assertTrue(InputParser.isDigits("1000"));
+        assertFalse(InputParser.isDigits(""));
+        assertFalse(InputParser.isDigits("-1"));
+        assertFalse(InputParser.isDigits("1 0"));
+        assertFalse(InputParser.isDigits("٣"));
+        assertEquals(1000, InputParser.parseId("1000"));
+        // Used to crash in Integer.parseInt; now it is simply nobody's id
+        assertEquals(-1, InputParser.parseId("99999999999"));
+    }
+
+    private static void assertSameStudent(String line) {
+        ParsedStudent expected = Legacy.parseStudent(line);
+        ParsedStudent actual = InputParser.parseStudent(line);
+        assertEquals(expected, actual, () -> "credentials \"" + line + "\"");
+    }
+
+    private static void assertSamePoints(String line) {
+        ParsedPoints expected = Legacy.parsePoints(line);
+        ParsedPoints actual = InputParser.parsePoints(line, COURSES);
+        String description = "points \"" + line + "\"";
+        assertEquals(expected.error(), actual.error(), description);
+        assertEquals(expected.error() == null ? null : expected.error().getMessage(expected.idText()),
+                actual.error() == null ? null : actual.error().getMessage(actual.idText()), description);
+        if (expected.isValid()) {
+            assertEquals(expected.id(), actual.id(), description);
+            assertArrayEquals(expected.points(), actual.points(), description);
+        }
+    }
+
+    // The validation StudentManager used before InputParser, unchanged apart from taking the course count
+    private static final class Legacy {
+
+        static ParsedStudent parseStudent(String credentials) {
+            String[] parts = credentials.trim().split("\\s+");
+            if (parts.length < 3) {
+                return ParsedStudent.invalid(Outcome.INCORRECT_CREDENTIALS);
+            }
+
+            String firstName = parts[0];
+            String lastName = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length - 1));
+            String email = parts[parts.length - 1];
+
+            if (isNotValidName(firstName)) {
+                return ParsedStudent.invalid(Outcome.INCORRECT_FIRST_NAME);
+            } else if (isNotValidName(lastName)) {
+                return ParsedStudent.invalid(Outcome.INCORRECT_LAST_NAME);
+            } else if (!isValidEmail(email)) {
+                return ParsedStudent.invalid(Outcome.INCORRECT_EMAIL);
+            }
+            return ParsedStudent.valid(firstName, lastName, email);
+        }
+
+        static ParsedPoints parsePoints(String inputData) {
+            String[] parts = inputData.trim().split("\\s+");
+            if (parts.length != COURSES + 1) {
+                return ParsedPoints.invalid(parts[0], Outcome.INCORRECT_POINTS_FORMAT);
+            }
+
+            int id;
+            try {
+                id = Integer.parseInt(parts[0]);
+            } catch (NumberFormatException e) {
+                return ParsedPoints.invalid(parts[0], Outcome.STUDENT_NOT_FOUND);
+            }
+
+            int[] points = new int[COURSES];
+            try {
+                for (int i = 0; i < COURSES; i++) {
+                    points[i] = Integer.parseInt(parts[i + 1]);
+                    if (points[i] < 0) {
+                        return ParsedPoints.invalid(parts[0], Outcome.INCORRECT_POINTS_FORMAT);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return ParsedPoints.invalid(parts[0], Outcome.INCORRECT_POINTS_FORMAT);
+            }
+            return ParsedPoints.valid(id, points);
+        }
+
+        private static boolean isNotValidName(String name) {
+            String[] nameParts = name.split("\\s+");
+            for (String part : nameParts) {
+                if (!isValidNamePart(part)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isValidNamePart(String namePart) {
+            return namePart.matches("[A-Za-z'-]{2,}") && !namePart.startsWith("-") && !namePart.startsWith("'")
+                    && !namePart.endsWith("-") && !namePart.endsWith("'") && !namePart.contains("''")
+                    && !namePart.contains("--") && !namePart.contains("'-") && !namePart.contains("-'");
+        }
+
+        private static boolean isValidEmail(String email) {
+            return email.matches("[\\w.-]+@[\\w-]+(\\.[\\w-]+)*\\.[\\w-]+");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks prefix lookups, paged by cursor, against a sorted scan of every name while
+ * registrations and lookups interleave, so runs of all sizes get merged along the way.
+ */
+class NameIndexTest {
+    private static final String[] SYLLABLES = {"an", "Ann", "bo", "BO", "cid", "d'a", "e-l", "li", "LEE", "mo", "o'"};
+
+    @Test
+    void lookupsMatchAScanOfTheNames() {
+        checkAgainstScan(CredentialStore.inMemory(), 3000);
+    }
+
+    @Test
+    void lookupsMatchAScanOfSpilledNames(@TempDir Path directory) throws IOException {
+        // Enough students for several chunks of the credentials to be mapped from the segment file
+        try (CredentialStore credentials = CredentialStore.tiered(directory.resolve("credentials.seg"), 100)) {
+            checkAgainstScan(credentials, 60_000);
+        }
+    }
+
+    private static void checkAgainstScan(CredentialStore credentials, int students) {
+        SplittableRandom random = new SplittableRandom(students);
+        StudentStore store = new StudentStore(1000, CourseRegistry.defaultCatalog(), credentials);
+        NameIndex index = new NameIndex(store);
+        List<String[]> names = new ArrayList<>();
+        while (names.size() < students) {
+            // Bursts of registrations of every size between lookups
+            int burst = 1 + random.nextInt(random.nextBoolean() ? 3 : 2000);
+            for (int i = 0; i < burst && names.size() < students; i++) {
+                String firstName = name(random);
+                String lastName = name(random) + (random.nextInt(4) == 0 ? " " + name(random) : "");
+                names.add(new String[]{firstName, lastName});
+                index.add(store.add(firstName, lastName, "s" + names.size() + "@example.com"));
+            }
+            for (int lookup = 0; lookup < 3; lookup++) {
+                String prefix = random.nextInt(10) == 0 ? "" : name(random).substring(0, 1 + random.nextInt(2));
+                assertArrayEquals(scan(names, prefix), pageThrough(index, prefix, 1 + random.nextInt(50)),
+                        "prefix " + prefix);
+            }
+        }
+    }
+
+    private static String name(SplittableRandom random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    // Collects every match a page at a time, each page resuming after the last id of the previous one
+    private static int[] pageThrough(NameIndex index, String prefix, int pageSize) {
+        List<Integer> ids = new ArrayList<>();
+        int[] page = index.findByPrefix(prefix, -1, pageSize);
+        while (page.length > 0) {
+            assertTrue(page.length <= pageSize);
+            for (int id : page) {
+                ids.add(id);
+            }
+            page = index.findByPrefix(prefix, page[page.length - 1], pageSize);
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Every match under the name it is listed by, the first name if both match, sorted by that name and then by id
+    private static int[] scan(List<String[]> names, String prefix) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        List<String[]> matches = new ArrayList<>();
+        for (int row = 0; row < names.size(); row++) {
+            for (int field = 0; field < 2; field++) {
+                String name = names.get(row)[field].toLowerCase(Locale.ROOT);
+                if (name.startsWith(lowerPrefix)) {
+                    matches.add(new String[]{name, Integer.toString(1000 + row)});
+                    break;
+                }
+            }
+        }
+        matches.sort(Comparator.<String[], String>comparing(match -> match[0])
+                .thenComparingInt(match -> Integer.parseInt(match[1])));
+        return matches.stream().mapToInt(match -> Integer.parseInt(match[1])).toArray();
+    }
+}
@@ -0,0 +1,149 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationDispatcherTest {
+
+    // Fails the given number of deliveries, then accepts everything
+    private static final class FlakySink implements NotificationSink {
+        private final List<Notification> delivered = new ArrayList<>();
+        private int failuresLeft;
+
+        FlakySink(int failures) {
+            this.failuresLeft = failures;
+        }
+
+        @Override
+        public synchronized void deliver(List<Notification> batch) throws IOException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("Sink unavailable");
+            }
+            delivered.addAll(batch);
+        }
+
+        synchronized List<Notification> getDelivered() {
+            return new ArrayList<>(delivered);
+        }
+    }
+
+    @Test
+    void failedBatchesAreRetriedUntilDelivered() throws Exception {
+        StudentManager studentManager = new StudentManager();
+        studentManager.registerStudent(InputParser.parseStudent("John Smith jsmith@hotmail.com"));
+        studentManager.registerStudent(InputParser.parseStudent("Jane Doe jdoe@example.com"));
+        studentManager.applyPoints(InputParser.parsePoints("1000 600 400 0 0", 4));
+        studentManager.applyPoints(InputParser.parsePoints("1001 0 0 480 0", 4));
+
+        FlakySink sink = new FlakySink(3);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink);
+        studentManager.setNotificationDispatcher(dispatcher);
+        StringWriter output = new StringWriter();
+        studentManager.generateNotifications(new PrintWriter(output));
+        // While the dispatcher is open, a failing batch is retried for as long as it takes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (dispatcher.getDeliveredCount() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        dispatcher.close();
+
+        assertTrue(output.toString().startsWith("Total 2 students have been notified."), output.toString());
+        assertEquals(List.of(
+                new Notification("jsmith@hotmail.com", "John Smith", "Java"),
+                new Notification("jsmith@hotmail.com", "John Smith", "DSA"),
+                new Notification("jdoe@example.com", "Jane Doe", "Databases")), sink.getDelivered());
+        assertEquals(3, dispatcher.getSubmittedCount());
+        assertEquals(3, dispatcher.getDeliveredCount());
+        assertEquals(3, dispatcher.getRetryCount());
+        assertEquals(0, dispatcher.getFailedCount());
+        assertEquals(0, dispatcher.getQueuedCount());
+        assertEquals(0b011, studentManager.getStore().getNotifiedCourses(1000));
+        assertEquals(0b100, studentManager.getStore().getNotifiedCourses(1001));
+    }
+
+    @Test
+    void undeliveredCoursesAreNotMarkedNotified() throws IOException {
+        StudentManager studentManager = new StudentManager();
+        studentManager.registerStudent(InputParser.parseStudent("John Smith jsmith@hotmail.com"));
+        studentManager.applyPoints(InputParser.parsePoints("1000 600 400 0 0", 4));
+
+        NotificationDispatcher dispatcher = new NotificationDispatcher(new FlakySink(Integer.MAX_VALUE));
+        studentManager.setNotificationDispatcher(dispatcher);
+        studentManager.generateNotifications(new PrintWriter(new StringWriter()));
+        dispatcher.close();
+
+        assertEquals(2, dispatcher.getFailedCount());
+        assertEquals(0, studentManager.getStore().getNotifiedCourses(1000));
+    }
+
+    @Test
+    void batchesStillFailingAtCloseAreCountedAsFailed() throws IOException {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(new FlakySink(Integer.MAX_VALUE));
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit(new Notification("student" + i + "@example.com", "First Last", "Java"));
+        }
+        dispatcher.close();
+
+        assertEquals(5, dispatcher.getSubmittedCount());
+        assertEquals(0, dispatcher.getDeliveredCount());
+        assertEquals(5, dispatcher.getFailedCount());
+        assertTrue(dispatcher.getRetryCount() > 0);
+    }
+
+    @Test
+    void submitsRacingCloseAreEitherDeliveredOrRejected() throws Exception {
+        FlakySink sink = new FlakySink(0);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong confirmed = new AtomicLong();
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int submitter = 0; submitter < 4; submitter++) {
+                running.add(submitters.submit(() -> {
+                    for (int i = 0; ; i++) {
+                        try {
+                            dispatcher.submit(new Notification("student" + i + "@example.com", "First Last", "Java"),
+                                    confirmed::incrementAndGet);
+                            accepted.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            while (accepted.get() < 1_000) {
+                Thread.sleep(1);
+            }
+            dispatcher.close();
+            for (Future<?> submitter : running) {
+                submitter.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            submitters.shutdownNow();
+        }
+
+        assertThrows(IllegalStateException.class,
+                () -> dispatcher.submit(new Notification("late@example.com", "First Last", "Java")));
+        // Nothing accepted is left behind in the queue
+        assertEquals(accepted.get(), dispatcher.getSubmittedCount());
+        assertEquals(accepted.get(), sink.getDelivered().size());
+        assertEquals(accepted.get(), confirmed.get());
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+}
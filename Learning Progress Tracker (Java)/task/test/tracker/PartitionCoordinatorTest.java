@@ -0,0 +1,99 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs a coordinator session against partitions served from this process and
+ * checks it against a session of the single-process tracker.
+ */
+class PartitionCoordinatorTest {
+    private static final int PARTITIONS = 2;
+    private static final int STUDENTS = 30;
+
+    @Test
+    void coordinatorSessionAnswersLikeASingleProcess() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("add students"));
+        for (int i = 0; i < STUDENTS; i++) {
+            lines.add("First Last s" + i + "@example.com");
+        }
+        lines.addAll(List.of("First Last S3@example.com", "First x bad", "back",
+                "add points", "1000 5 0 7 0", "999 1 1 1 1", "1000 -1 0 0 0", "back",
+                "statistics", "Java", "Databases", "Go", "back",
+                "frobnicate", "", "exit"));
+        String[] session = lines.toArray(new String[0]);
+
+        List<PartitionWorker> workers = new ArrayList<>();
+        List<String> addresses = new ArrayList<>();
+        try {
+            for (int i = 0; i < PARTITIONS; i++) {
+                StudentManager partition = new StudentManager(CourseRegistry.defaultCatalog(),
+                        PartitionCoordinator.firstStudentId(i));
+                PartitionWorker worker = new PartitionWorker(0, i, partition);
+                workers.add(worker);
+                new Thread(worker::run).start();
+                addresses.add(InetAddress.getLoopbackAddress().getHostAddress() + ":" + worker.getPort());
+            }
+            try (PartitionCoordinator coordinator = PartitionCoordinator.connect(addresses,
+                    CourseRegistry.defaultCatalog())) {
+                // Partition 0's first student gets the same id as the first student of a single process
+                assertEquals(CommandProcessorTest.runSession(new StudentManager(), session),
+                        runSession(coordinator, session));
+            }
+        } finally {
+            workers.forEach(PartitionWorker::close);
+        }
+    }
+
+    @Test
+    void concurrentRegistrationsStopAtTheLimit() throws Exception {
+        StudentManager studentManager = new StudentManager();
+        studentManager.setMaxStudents(50);
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService registrars = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int first = thread * 40;
+                done.add(registrars.submit(() -> {
+                    for (int i = first; i < first + 40; i++) {
+                        try {
+                            studentManager.registerStudent(InputParser.parseStudent("First Last s" + i + "@example.com"));
+                        } catch (IllegalStateException e) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            registrars.shutdownNow();
+        }
+        assertEquals(50, studentManager.getStudentCount());
+        assertEquals(4 * 40 - 50, refused.get());
+    }
+
+    private static String runSession(PartitionCoordinator coordinator, String... lines) {
+        Charset charset = Charset.defaultCharset();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConsoleIO console = new ConsoleIO(new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(charset)),
+                output);
+        new CoordinatorProcessor(console, coordinator).run();
+        return output.toString(charset).replace(System.lineSeparator(), "\n");
+    }
+}
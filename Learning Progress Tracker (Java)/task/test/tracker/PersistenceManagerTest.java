@@ -0,0 +1,42 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recovers a directory whose last snapshot failed to write, as if the tracker
+ * had stopped right after, without a chance to close anything.
+ */
+class PersistenceManagerTest {
+
+    @Test
+    void failedSnapshotKeepsEveryChangeRecoverable(@TempDir Path directory) throws IOException {
+        StudentManager studentManager = new StudentManager();
+        PersistenceManager persistence = PersistenceManager.open(directory, studentManager, Long.MAX_VALUE);
+        studentManager.registerStudent(InputParser.parseStudent("Ann Lee a@x.com"));
+        studentManager.applyPoints(InputParser.parsePoints("1000 5 0 0 0", 4));
+        persistence.snapshot();
+
+        studentManager.registerStudent(InputParser.parseStudent("Bob Lee b@x.com"));
+        // A non-empty directory where the next snapshot is written makes that write fail
+        Files.createDirectories(directory.resolve("snapshot-2.bin.tmp").resolve("blocker"));
+        assertThrows(IOException.class, persistence::snapshot);
+        studentManager.applyPoints(InputParser.parsePoints("1001 0 3 0 0", 4));
+        studentManager.applyPoints(InputParser.parsePoints("1000 1 0 0 0", 4));
+
+        StudentManager recovered = new StudentManager();
+        PersistenceManager.open(directory, recovered, Long.MAX_VALUE);
+        assertEquals(2, recovered.getStudentCount());
+        assertEquals(6, recovered.getStore().getPoints(1000, 0));
+        assertEquals(3, recovered.getStore().getPoints(1001, 1));
+        assertEquals(1, recovered.getCourseStatistics().getEnrolledStudents(1));
+        assertEquals(9, recovered.getCourseStatistics().getTotalPoints(0) + recovered.getCourseStatistics().getTotalPoints(1));
+    }
+}
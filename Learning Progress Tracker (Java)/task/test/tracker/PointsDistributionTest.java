@@ -0,0 +1,121 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the bucketed distribution against exact answers from the sorted points.
+ */
+class PointsDistributionTest {
+    private static final int THRESHOLD = 600;
+    private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100};
+
+    @Test
+    void bucketsCoverEveryValueInOrderWithinTheStatedWidth() {
+        SplittableRandom random = new SplittableRandom(1);
+        int previousBucket = 0;
+        for (int value = 1; value < 1 << 20; value++) {
+            previousBucket = checkBucket(value, previousBucket);
+        }
+        for (int i = 0; i < 1_000_000; i++) {
+            checkBucket(random.nextInt(1 << 20, Integer.MAX_VALUE), 0);
+        }
+        int last = PointsDistribution.bucketOf(Integer.MAX_VALUE);
+        assertEquals(PointsDistribution.BUCKETS - 1, last);
+        assertEquals(Integer.MAX_VALUE, PointsDistribution.upperBoundOf(last));
+    }
+
+    // Returns the bucket of the value, which must not come before the previous value's
+    private static int checkBucket(int value, int previousBucket) {
+        int bucket = PointsDistribution.bucketOf(value);
+        assertTrue(bucket >= previousBucket, () -> "bucket order at " + value);
+        long lower = bucket == 0 ? 0 : PointsDistribution.upperBoundOf(bucket - 1) + 1;
+        long upper = PointsDistribution.upperBoundOf(bucket);
+        assertTrue(lower <= value && value <= upper, () -> value + " outside [" + lower + ", " + upper + "]");
+        if (value < 128) {
+            assertEquals(value, upper);
+        } else {
+            assertTrue((upper - lower + 1) * 64 <= lower, () -> "bucket of " + value + " is too wide");
+        }
+        return bucket;
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6})
+    void percentilesMatchTheSortedPointsWithinOneBucket(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int students = random.nextInt(1, 3000);
+        int[] points = new int[students];
+        PointsDistribution distribution = new PointsDistribution(THRESHOLD);
+        // Most seeds keep to course-sized totals; the others reach the wide buckets
+        int maxIncrement = seed % 3 == 0 ? 1_000_000 : 40;
+        for (int update = 0; update < students * 5; update++) {
+            int student = random.nextInt(students);
+            int added = random.nextInt(1, maxIncrement + 1);
+            distribution.update(points[student], points[student] + added);
+            points[student] += added;
+        }
+
+        int[] enrolled = Arrays.stream(points).filter(p -> p > 0).sorted().toArray();
+        PointsDistribution.Snapshot snapshot = distribution.snapshot();
+        assertEquals(enrolled.length, snapshot.getEnrolled());
+        assertEquals(enrolled[enrolled.length - 1], snapshot.getMax());
+        assertEquals((double) Arrays.stream(enrolled).asLongStream().sum() / enrolled.length, snapshot.getMean(), 1e-9);
+
+        for (double percentile : PERCENTILES) {
+            int rank = Math.max(1, (int) Math.ceil(percentile / 100 * enrolled.length));
+            long exact = enrolled[rank - 1];
+            long reported = snapshot.getPercentile(percentile);
+            String description = "p" + percentile + " of " + enrolled.length;
+            assertEquals(Math.min(PointsDistribution.upperBoundOf(PointsDistribution.bucketOf((int) exact)),
+                    snapshot.getMax()), reported, description);
+            assertTrue(exact <= reported && reported <= exact + exact / 64, description);
+            if (exact < 128) {
+                assertEquals(exact, reported, description);
+            }
+        }
+
+        long[] completion = new long[PointsDistribution.COMPLETION_BUCKETS];
+        for (int value : enrolled) {
+            completion[(int) Math.min(PointsDistribution.COMPLETION_BUCKETS - 1, value * 10L / THRESHOLD)]++;
+        }
+        for (int bucket = 0; bucket < completion.length; bucket++) {
+            assertEquals(completion[bucket], snapshot.getCompletionCount(bucket), "completion bucket " + bucket);
+        }
+
+        PointsDistribution.Snapshot decoded = PointsDistribution.Snapshot.decode(snapshot.encode());
+        assertEquals(snapshot.encode(), decoded.encode());
+        for (double percentile : PERCENTILES) {
+            assertEquals(snapshot.getPercentile(percentile), decoded.getPercentile(percentile));
+        }
+    }
+
+    @Test
+    void mergedSnapshotsAnswerLikeOneDistribution() {
+        SplittableRandom random = new SplittableRandom(9);
+        PointsDistribution whole = new PointsDistribution(THRESHOLD);
+        PointsDistribution[] parts = {new PointsDistribution(THRESHOLD), new PointsDistribution(THRESHOLD)};
+        for (int student = 0; student < 1000; student++) {
+            int value = random.nextInt(1, 5000);
+            whole.update(0, value);
+            parts[student % 2].update(0, value);
+        }
+        PointsDistribution.Snapshot merged = parts[0].snapshot().merge(parts[1].snapshot());
+        assertEquals(whole.snapshot().encode(), merged.encode());
+    }
+
+    @Test
+    void emptyDistributionReportsZeros() {
+        PointsDistribution.Snapshot snapshot = new PointsDistribution(THRESHOLD).snapshot();
+        assertEquals(0, snapshot.getEnrolled());
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(0.0, snapshot.getMean());
+    }
+}
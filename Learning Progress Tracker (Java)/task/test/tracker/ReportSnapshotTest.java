@@ -0,0 +1,151 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reports walk immutable snapshots of the leaderboards and course statistics. These
+ * tests check both halves of that: a report that is stuck halfway through a
+ * leaderboard does not hold up any update, and reports taken while updates are
+ * running only ever see whole states.
+ */
+class ReportSnapshotTest {
+    private static final int COURSES = 4;
+    private static final int STUDENTS = 500;
+
+    @Test
+    void aStalledReportDoesNotBlockUpdates() throws Exception {
+        StudentManager studentManager = roster();
+        for (int i = 0; i < STUDENTS; i++) {
+            studentManager.applyPoints(InputParser.parsePoints((1000 + i) + " " + (i + 1) + " 0 0 0", COURSES));
+        }
+
+        CountDownLatch visiting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService reporter = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<int[]>> report = reporter.submit(() -> {
+                List<int[]> seen = new ArrayList<>();
+                studentManager.forEachLearnerAfter(0, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                        (id, points) -> {
+                            seen.add(new int[]{id, points});
+                            if (seen.size() == 1) {
+                                visiting.countDown();
+                                awaitUninterruptibly(release);
+                            }
+                        });
+                return seen;
+            });
+            assertTrue(visiting.await(10, TimeUnit.SECONDS));
+
+            // Every student moves to the top while the report is parked on its first learner
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < STUDENTS; i++) {
+                    assertEquals(Outcome.POINTS_UPDATED,
+                            studentManager.applyPoints(InputParser.parsePoints((1000 + i) + " 1000 1 1 1", COURSES)));
+                }
+            });
+            release.countDown();
+
+            List<int[]> seen = report.get(10, TimeUnit.SECONDS);
+            assertEquals(STUDENTS, seen.size());
+            for (int rank = 0; rank < STUDENTS; rank++) {
+                // The leaderboard as it was when the report started: id 1499 first with 500 points
+                assertEquals(1000 + STUDENTS - 1 - rank, seen.get(rank)[0]);
+                assertEquals(STUDENTS - rank, seen.get(rank)[1]);
+            }
+        } finally {
+            release.countDown();
+            reporter.shutdownNow();
+        }
+    }
+
+    @Test
+    void reportsDuringUpdatesSeeWholeStates() throws Exception {
+        StudentManager studentManager = roster();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService writers = Executors.newFixedThreadPool(3);
+        List<Future<?>> running = new ArrayList<>();
+        for (int writer = 0; writer < 3; writer++) {
+            SplittableRandom random = new SplittableRandom(writer);
+            running.add(writers.submit(() -> {
+                while (writing.get()) {
+                    // The same points in every course, so every consistent statistics snapshot has equal courses
+                    int points = random.nextInt(1, 20);
+                    studentManager.applyPoints(InputParser.parsePoints(
+                            (1000 + random.nextInt(STUDENTS)) + (" " + points).repeat(COURSES), COURSES));
+                }
+            }));
+        }
+
+        try {
+            long[] lastTotals = new long[COURSES];
+            for (int report = 0; report < 300; report++) {
+                CourseStatistics.Snapshot statistics = studentManager.getCourseStatistics().snapshot();
+                for (int course = 1; course < COURSES; course++) {
+                    assertEquals(statistics.getSubmissions(0), statistics.getSubmissions(course));
+                    assertEquals(statistics.getTotalPoints(0), statistics.getTotalPoints(course));
+                    assertEquals(statistics.getEnrolledStudents(0), statistics.getEnrolledStudents(course));
+                }
+
+                long[] total = {0};
+                int[] previous = {Integer.MIN_VALUE, Integer.MAX_VALUE};
+                Set<Integer> ids = new HashSet<>();
+                int course = report % COURSES;
+                int visited = studentManager.forEachLearnerAfter(course, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                        Integer.MAX_VALUE, (id, points) -> {
+                            assertTrue(points < previous[1] || points == previous[1] && id > previous[0],
+                                    "out of rank order");
+                            assertTrue(ids.add(id), "listed twice");
+                            previous[0] = id;
+                            previous[1] = points;
+                            total[0] += points;
+                        });
+                assertEquals(ids.size(), visited);
+                // Points only grow, and leaderboards are updated before the statistics, so a walk holds
+                // at least the points of any earlier snapshot of either
+                assertTrue(total[0] >= lastTotals[course]);
+                assertTrue(total[0] >= statistics.getTotalPoints(course));
+                lastTotals[course] = total[0];
+            }
+        } finally {
+            writing.set(false);
+            for (Future<?> writer : running) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+            writers.shutdownNow();
+        }
+    }
+
+    private static StudentManager roster() {
+        StudentManager studentManager = new StudentManager();
+        for (int i = 0; i < STUDENTS; i++) {
+            studentManager.registerStudent(InputParser.parseStudent("First Last student" + i + "@example.com"));
+        }
+        return studentManager;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
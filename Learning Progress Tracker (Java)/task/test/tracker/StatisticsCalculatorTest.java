@@ -0,0 +1,185 @@
+package tracker;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the incrementally maintained statistics against a full rescan of the final
+ * points, done here the way the original calculator did it: popularity from the
+ * students with points in a course, and activity and difficulty from every accepted
+ * submission that had points for the course.
+ */
+class StatisticsCalculatorTest {
+    private static final int COURSES = 4;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8})
+    void incrementalStatisticsMatchAFullRescan(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StudentManager studentManager = new StudentManager();
+        int students = 1 + random.nextInt(300);
+        for (int i = 0; i < students; i++) {
+            studentManager.registerStudent(InputParser.parseStudent("First Last student" + i + "@example.com"));
+        }
+
+        long[][] points = new long[students][COURSES];
+        long[] submissions = new long[COURSES];
+        int updates = random.nextInt(students * 4);
+        for (int update = 0; update < updates; update++) {
+            // A few updates go to ids nobody has and must not count
+            int row = random.nextInt(students + students / 10 + 1);
+            int[] added = new int[COURSES];
+            StringBuilder line = new StringBuilder().append(1000 + row);
+            for (int course = 0; course < COURSES; course++) {
+                added[course] = random.nextInt(3) == 0 ? 0 : random.nextInt(1, 40);
+                line.append(' ').append(added[course]);
+            }
+            Outcome outcome = studentManager.applyPoints(InputParser.parsePoints(line.toString(), COURSES));
+            assertEquals(row < students ? Outcome.POINTS_UPDATED : Outcome.STUDENT_NOT_FOUND, outcome);
+            if (row < students) {
+                for (int course = 0; course < COURSES; course++) {
+                    points[row][course] += added[course];
+                    if (added[course] > 0) {
+                        submissions[course]++;
+                    }
+                }
+            }
+        }
+
+        CourseRegistry courses = studentManager.getCourses();
+        StatisticsCalculator calculator = new StatisticsCalculator(courses, studentManager.getCourseStatistics());
+        Rescan rescan = new Rescan(courses, points, submissions);
+        assertEquals(rescan.mostPopular(), calculator.calculateMostPopularCourse());
+        assertEquals(rescan.leastPopular(), calculator.calculateLeastPopularCourse());
+        assertEquals(rescan.highestActivity(), calculator.calculateHighestActivityCourse());
+        assertEquals(rescan.lowestActivity(), calculator.calculateLowestActivityCourse());
+        assertEquals(rescan.easiest(), calculator.calculateEasiestCourse());
+        assertEquals(rescan.hardest(), calculator.calculateHardestCourse());
+
+        for (int course = 0; course < COURSES; course++) {
+            StringWriter details = new StringWriter();
+            studentManager.displayCourseDetails(courses.getName(course), new PrintWriter(details));
+            assertEquals(rescan.courseDetails(course), details.toString());
+        }
+    }
+
+    private record Rescan(CourseRegistry courses, long[][] points, long[] submissions) {
+
+        long[] enrollment() {
+            long[] enrolled = new long[COURSES];
+            for (long[] student : points) {
+                for (int course = 0; course < COURSES; course++) {
+                    if (student[course] > 0) {
+                        enrolled[course]++;
+                    }
+                }
+            }
+            return enrolled;
+        }
+
+        boolean anyEnrolled() {
+            for (long enrolled : enrollment()) {
+                if (enrolled > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String mostPopular() {
+            return anyEnrolled() ? coursesWith(enrollment(), true) : "n/a";
+        }
+
+        String leastPopular() {
+            return anyEnrolled() ? leastOf(enrollment()) : "n/a";
+        }
+
+        String highestActivity() {
+            return anyEnrolled() ? coursesWith(submissions, true) : "n/a";
+        }
+
+        String lowestActivity() {
+            return anyEnrolled() ? leastOf(submissions) : "n/a";
+        }
+
+        String easiest() {
+            return anyEnrolled() ? courses.getName(extremeDifficulty(true)) : "n/a";
+        }
+
+        String hardest() {
+            return anyEnrolled() ? courses.getName(extremeDifficulty(false)) : "n/a";
+        }
+
+        String courseDetails(int course) {
+            List<Integer> learners = new ArrayList<>();
+            for (int row = 0; row < points.length; row++) {
+                if (points[row][course] > 0) {
+                    learners.add(row);
+                }
+            }
+            learners.sort(Comparator.comparingLong((Integer row) -> -points[row][course]).thenComparingInt(row -> row));
+            StringWriter expected = new StringWriter();
+            PrintWriter out = new PrintWriter(expected);
+            out.println(courses.getName(course));
+            out.println("id\tpoints\tcompleted");
+            for (int row : learners) {
+                out.printf("%d\t%d\t%.1f%%%n", 1000 + row, points[row][course],
+                        (double) points[row][course] / courses.getCompletionThreshold(course) * 100);
+            }
+            return expected.toString();
+        }
+
+        private String leastOf(long[] values) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (long value : values) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            return min == max ? "n/a" : coursesWith(values, false);
+        }
+
+        private String coursesWith(long[] values, boolean highest) {
+            long extreme = highest ? Long.MIN_VALUE : Long.MAX_VALUE;
+            for (long value : values) {
+                extreme = highest ? Math.max(extreme, value) : Math.min(extreme, value);
+            }
+            List<String> names = new ArrayList<>();
+            for (int course = 0; course < COURSES; course++) {
+                if (values[course] == extreme) {
+                    names.add(courses.getName(course));
+                }
+            }
+            Collections.sort(names);
+            return String.join(", ", names);
+        }
+
+        // The first course in catalog order with the highest or lowest average points per submission
+        private int extremeDifficulty(boolean easiest) {
+            int found = 0;
+            double foundAverage = 0;
+            for (int course = 0; course < COURSES; course++) {
+                long total = 0;
+                for (long[] student : points) {
+                    total += student[course];
+                }
+                double average = submissions[course] > 0 ? (double) total / submissions[course] : 0.0;
+                if (course == 0 || (easiest ? average > foundAverage : average < foundAverage)) {
+                    found = course;
+                    foundAverage = average;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recounts a roster spanning several shards in parallel and checks every partial
+ * aggregate against a sequential scan and the incremental counters.
+ */
+class StatisticsEngineTest {
+    private static final int STUDENTS = 150_000;
+
+    @Test
+    void parallelRecountMatchesASequentialScan() {
+        SplittableRandom random = new SplittableRandom(8);
+        StudentManager studentManager = new StudentManager();
+        int courseCount = studentManager.getCourses().size();
+        long[] enrolled = new long[courseCount];
+        long[] total = new long[courseCount];
+        int[] min = new int[courseCount];
+        int[] max = new int[courseCount];
+        for (int i = 0; i < STUDENTS; i++) {
+            studentManager.registerStudent(InputParser.parseStudent("Ann Lee s" + i + "@x.com"));
+            // The last course stays empty
+            int[] points = {random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(900), random.nextInt(50), random.nextInt(2), 0};
+            studentManager.applyPoints(InputParser.parsePoints(
+                    (1000 + i) + " " + points[0] + " " + points[1] + " " + points[2] + " " + points[3], courseCount));
+            for (int course = 0; course < courseCount; course++) {
+                if (points[course] > 0) {
+                    min[course] = enrolled[course] == 0 ? points[course] : Math.min(min[course], points[course]);
+                    max[course] = Math.max(max[course], points[course]);
+                    enrolled[course]++;
+                    total[course] += points[course];
+                }
+            }
+        }
+        assertTrue(studentManager.getStore().getShardCount() > 2, "the roster should span several shards");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StatisticsEngine.CourseAggregates aggregates = studentManager.aggregateCourses(new StatisticsEngine(pool));
+            CourseStatistics.Snapshot counters = studentManager.getCourseStatistics().snapshot();
+            for (int course = 0; course < courseCount; course++) {
+                assertEquals(enrolled[course], aggregates.getEnrolledStudents(course));
+                assertEquals(total[course], aggregates.getTotalPoints(course));
+                assertEquals(min[course], aggregates.getMinPoints(course));
+                assertEquals(max[course], aggregates.getMaxPoints(course));
+                assertEquals(counters.getEnrolledStudents(course), aggregates.getEnrolledStudents(course));
+                assertEquals(counters.getTotalPoints(course), aggregates.getTotalPoints(course));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void recountCommandPrintsTheAggregates() {
+        String transcript = CommandProcessorTest.runSession(new StudentManager(),
+                "add students", "Ann Lee a@x.com", "Bob Lee b@x.com", "back",
+                "add points", "1000 5 0 7 0", "1001 600 0 1 0", "back",
+                "statistics recount", "exit");
+
+        assertTrue(transcript.endsWith("""
+                course\tenrolled\ttotal\tmin\tmax
+                Java\t2\t605\t5\t600
+                DSA\t0\t0\tn/a\tn/a
+                Databases\t2\t8\t1\t7
+                Spring\t0\t0\tn/a\tn/a
+                Bye!
+                """), transcript);
+    }
+}
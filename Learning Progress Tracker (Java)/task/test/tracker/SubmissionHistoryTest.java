@@ -0,0 +1,91 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SubmissionHistoryTest {
+    private static final int COURSES = 4;
+
+    @Test
+    void windowsMatchTheSubmissionsInOrder() {
+        SplittableRandom random = new SplittableRandom(3);
+        SubmissionHistory history = new SubmissionHistory(COURSES);
+        // Past the ring's capacity, so windows start in reused blocks
+        byte[] submitted = new byte[SubmissionHistory.CAPACITY + SubmissionHistory.CAPACITY / 2];
+        int recorded = 0;
+        while (recorded < submitted.length - COURSES) {
+            int[] points = new int[COURSES];
+            for (int course = 0; course < COURSES; course++) {
+                if (random.nextInt(3) == 0) {
+                    points[course] = random.nextInt(1, 10);
+                    submitted[recorded++] = (byte) course;
+                }
+            }
+            history.record(points);
+            if (random.nextInt(20_000) == 0) {
+                checkWindows(history, submitted, recorded, random);
+            }
+        }
+        assertEquals(recorded, history.getRecordedCount());
+        checkWindows(history, submitted, recorded, random);
+    }
+
+    private static void checkWindows(SubmissionHistory history, byte[] submitted, int recorded, SplittableRandom random) {
+        long[] windows = {0, 1, 1023, 1024, 1025, random.nextInt(1, SubmissionHistory.CAPACITY),
+                SubmissionHistory.CAPACITY, Long.MAX_VALUE};
+        for (long window : windows) {
+            int size = (int) Math.min(window, Math.min(recorded, SubmissionHistory.CAPACITY));
+            long[] expected = new long[COURSES];
+            for (int i = recorded - size; i < recorded; i++) {
+                expected[submitted[i]]++;
+            }
+            assertArrayEquals(expected, history.countLastSubmissions(window), "last " + window + " of " + recorded);
+        }
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws Exception {
+        SubmissionHistory history = new SubmissionHistory(COURSES);
+        int threads = 4;
+        int recordsPerThread = 50_000;
+        ExecutorService writers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int course = thread % COURSES;
+                running.add(writers.submit(() -> {
+                    int[] points = new int[COURSES];
+                    points[course] = 1;
+                    points[(course + 1) % COURSES] = 2;
+                    for (int i = 0; i < recordsPerThread; i++) {
+                        history.record(points);
+                    }
+                }));
+            }
+            for (Future<?> writer : running) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        long[] expected = new long[COURSES];
+        for (int thread = 0; thread < threads; thread++) {
+            expected[thread % COURSES] += recordsPerThread;
+            expected[(thread + 1) % COURSES] += recordsPerThread;
+        }
+        assertEquals(2L * threads * recordsPerThread, history.getRecordedCount());
+        assertArrayEquals(expected, history.countLastSubmissions(Long.MAX_VALUE));
+        assertArrayEquals(expected, history.countLastMinutes(2));
+    }
+}
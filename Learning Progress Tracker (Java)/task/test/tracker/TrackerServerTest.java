@@ -0,0 +1,139 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Drives a {@link TrackerServer} on localhost from several connections at once, all
+ * adding points to the same few students, and checks that nothing was lost: the final
+ * points and statistics must match a single console session that applied the same
+ * updates one after another. Also checks that remote sessions cannot touch files.
+ */
+class TrackerServerTest {
+    private static final int CLIENTS = 6;
+    private static final int STUDENTS = 12;
+    private static final int UPDATES_PER_CLIENT = 400;
+
+    @Test
+    void concurrentClientsLoseNoPoints() throws Exception {
+        StudentManager served = new StudentManager();
+        StudentManager reference = new StudentManager();
+        for (int i = 0; i < STUDENTS; i++) {
+            String credentials = "First Last student" + i + "@example.com";
+            served.registerStudent(InputParser.parseStudent(credentials));
+            reference.registerStudent(InputParser.parseStudent(credentials));
+        }
+
+        List<List<String>> updates = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            SplittableRandom random = new SplittableRandom(client);
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < UPDATES_PER_CLIENT; i++) {
+                // Zeros leave some courses out of a submission, which changes activity but not popularity
+                lines.add((1000 + random.nextInt(STUDENTS)) + " " + random.nextInt(3) + " " + random.nextInt(5)
+                        + " " + random.nextInt(2) + " " + random.nextInt(4));
+            }
+            updates.add(lines);
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try (TrackerServer server = new TrackerServer(0, served)) {
+            Thread acceptor = new Thread(server::run);
+            acceptor.start();
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> transcripts = new ArrayList<>();
+            for (List<String> lines : updates) {
+                List<String> session = new ArrayList<>();
+                session.add("add points");
+                session.addAll(lines);
+                session.add("back");
+                session.add("exit");
+                transcripts.add(clients.submit(() -> {
+                    start.await();
+                    return converse(server.getPort(), session);
+                }));
+            }
+            start.countDown();
+            for (Future<String> transcript : transcripts) {
+                String output = transcript.get(60, TimeUnit.SECONDS);
+                assertEquals(UPDATES_PER_CLIENT, output.split("Points updated\\.", -1).length - 1, output);
+            }
+            for (List<String> lines : updates) {
+                for (String line : lines) {
+                    assertEquals(Outcome.POINTS_UPDATED, reference.applyPoints(InputParser.parsePoints(line, 4)));
+                }
+            }
+
+            List<String> report = new ArrayList<>(List.of("find"));
+            for (int i = 0; i < STUDENTS; i++) {
+                report.add(String.valueOf(1000 + i));
+            }
+            report.addAll(List.of("back", "statistics", "Java", "DSA", "Databases", "Spring", "back", "exit"));
+            String[] lines = report.toArray(new String[0]);
+            assertEquals(CommandProcessorTest.runSession(reference, lines), converse(server.getPort(), report));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    void remoteSessionsCannotReachFiles(@TempDir Path directory) throws Exception {
+        StudentManager served = new StudentManager();
+        served.registerStudent(InputParser.parseStudent("First Last student@example.com"));
+        Path target = directory.resolve("roster.txt");
+        try (TrackerServer server = new TrackerServer(0, served)) {
+            Thread acceptor = new Thread(server::run);
+            acceptor.start();
+            String transcript = converse(server.getPort(), List.of("save list " + target, "export " + target,
+                    "import students " + target, "list", "exit"));
+
+            assertEquals("""
+                    Learning Progress Tracker
+                    This command is not available over the network.
+                    This command is not available over the network.
+                    This command is not available over the network.
+                    Students:
+                    1000
+                    Bye!
+                    """, transcript);
+        }
+        assertFalse(Files.exists(target));
+    }
+
+    // Sends the whole session over one connection and returns everything the server printed
+    private static String converse(int port, List<String> lines) throws IOException {
+        Charset charset = Charset.defaultCharset();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write((String.join("\n", lines) + "\n").getBytes(charset));
+            out.flush();
+            socket.shutdownOutput();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            in.transferTo(received);
+            return received.toString(charset).replace(System.lineSeparator(), "\n");
+        }
+    }
+}